@@ -0,0 +1,115 @@
+/*
+ * BatchFrequency.java
+ * Word frequencies of many files at once.
+ *
+ * The files are counted in parallel by a fixed number of worker threads. Each
+ * worker counts one file into its own WordCounter and hands it back; the main
+ * thread prints the top words of every file as soon as it is done and adds its
+ * counts into the global table. So every file is read exactly once, and the
+ * global table is only touched by one thread (no locking needed).
+ */
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+public class BatchFrequency {
+    private static class FileCounts {
+        final Path file;
+        final WordCounter counts;
+        final int words;
+
+        FileCounts(Path file, WordCounter counts, int words) {
+            this.file = file;
+            this.counts = counts;
+            this.words = words;
+        }
+    }
+
+    // Counts all the files with the given number of threads; prints the
+    // top k words of every file, and returns the counts of all files together
+    public static WordCounter count(List<Path> files, int threads, int k)
+            throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CompletionService<FileCounts> done = new ExecutorCompletionService<FileCounts>(pool);
+        WordCounter global = new WordCounter();
+        try {
+            for (Path file : files)
+                done.submit(() -> countFile(file));
+
+            for (int i = 0; i < files.size(); i++) {
+                FileCounts result = done.take().get();
+                System.out.println(result.file + ": " + result.words + " words, top "
+                        + TopWords.top(result.counts, k));
+                result.counts.forEach(global::add);
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        return global;
+    } // end count
+
+    private static FileCounts countFile(Path file) throws IOException {
+        WordCounter counts = new WordCounter();
+        int words = 0;
+        try (MappedTokenizer tokenizer = new MappedTokenizer(file.toFile())) {
+            while (tokenizer.advance()) {
+                counts.increment(tokenizer.wordBytes(), tokenizer.wordLength());
+                words++;
+            }
+        }
+        return new FileCounts(file, counts, words);
+    }
+
+    // A directory means all the .txt files in it and its subdirectories (not,
+    // for example, the .idx files that FrequencyTest saves next to a text);
+    // anything else is a glob pattern such as texts/*.txt or logs/**/*.log
+    public static List<Path> findFiles(String where) throws IOException {
+        Path dir = Paths.get(where);
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:**.txt");
+        if (!Files.isDirectory(dir)) {
+            // the directory part of the pattern is everything before the first glob character
+            int firstGlob = indexOfAny(where, "*?[{");
+            int lastSlash = (firstGlob < 0) ? -1 : where.lastIndexOf('/', firstGlob);
+            dir = Paths.get(lastSlash < 0 ? "." : where.substring(0, Math.max(lastSlash, 1)));
+            matcher = FileSystems.getDefault().getPathMatcher("glob:" + where.substring(lastSlash + 1));
+        }
+
+        final Path base = dir;
+        final PathMatcher filter = matcher;
+        try (Stream<Path> paths = Files.walk(base)) {
+            return paths.filter(Files::isRegularFile)
+                        .filter(p -> filter.matches(base.relativize(p)))
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+    } // end findFiles
+
+    private static int indexOfAny(String s, String chars) {
+        for (int i = 0; i < s.length(); i++)
+            if (chars.indexOf(s.charAt(i)) >= 0)
+                return i;
+        return -1;
+    }
+
+    // java BatchFrequency <directory or glob> [threads] [k]
+    public static void main(String[] args) throws Exception {
+        int threads = (args.length > 1) ? Integer.parseInt(args[1])
+                                        : Runtime.getRuntime().availableProcessors();
+        int k = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+
+        List<Path> files = findFiles(args[0]);
+        System.out.println("Counting " + files.size() + " files with " + threads + " threads");
+
+        long startTime = System.nanoTime();
+        WordCounter global = count(files, threads, k);
+        long duration = (System.nanoTime() - startTime) / 1000000;
+
+        System.out.println("All files: " + global.size() + " distinct words, top "
+                + TopWords.top(global, k));
+        System.out.println("Counted in " + duration + " ms");
+    }
+}
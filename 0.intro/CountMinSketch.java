@@ -0,0 +1,209 @@
+/*
+ * CountMinSketch.java
+ * Estimates how many times each word occurs using a fixed amount of memory,
+ * no matter how many different words there are (Cormode and Muthukrishnan).
+ *
+ * The sketch is a table of depth rows and width columns of counters. Every row
+ * has its own hash function; adding a word adds 1 to one counter in each row.
+ * Other words may hash into the same counters, so each counter can only be too
+ * high, never too low, and the estimate is the smallest of the word's counters.
+ *
+ * With width = ceil(e / epsilon) and depth = ceil(ln(1 / delta)) the estimate is
+ * at most epsilon * (number of words added) too high, with probability 1 - delta.
+ *
+ * Two sketches of the same size can be merged by adding the tables, so the parts
+ * of a big input can be counted separately (even on different machines).
+ */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class CountMinSketch {
+    private final int width;
+    private final int depth;
+    private final int [][] table;
+    private long total;          // number of words added
+
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0)
+            throw new IllegalArgumentException("Width and depth must be positive: " + width + " x " + depth);
+        this.width = width;
+        this.depth = depth;
+        this.table = new int[depth][width];
+    }
+
+    // Sketch whose estimates are within epsilon * total of the real count
+    // with probability at least 1 - delta
+    public static CountMinSketch withError(double epsilon, double delta) {
+        int width = (int) Math.ceil(Math.E / epsilon);
+        int depth = (int) Math.ceil(Math.log(1 / delta));
+        return new CountMinSketch(width, depth);
+    }
+
+    public void add(String word) {
+        add(hash(word));
+    }
+
+    // The word in bytes[0 .. length-1] (UTF-8), e.g. the current word of a MappedTokenizer
+    public void add(byte [] bytes, int length) {
+        add(hash(bytes, length));
+    }
+
+    public int estimate(String word) {
+        long h = hash(word);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++)
+            min = Math.min(min, table[row][column(h1, h2, row)]);
+        return min;
+    }
+
+    // Adds the counts of other to this sketch
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth)
+            throw new IllegalArgumentException("Cannot merge a " + other.depth + " x " + other.width
+                    + " sketch into a " + depth + " x " + width + " sketch");
+        for (int row = 0; row < depth; row++)
+            for (int col = 0; col < width; col++)
+                table[row][col] += other.table[row][col];
+        total += other.total;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    // Memory used by the counters
+    public long sizeInBytes() {
+        return 4L * width * depth;
+    }
+
+    private void add(long h) {
+        // the row hash functions are h1 + row * h2 (Kirsch and Mitzenmacher):
+        // as good as independent functions for this purpose, and only one hash to compute
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int row = 0; row < depth; row++)
+            table[row][column(h1, h2, row)]++;
+        total++;
+    }
+
+    private int column(int h1, int h2, int row) {
+        return Math.floorMod(h1 + row * h2, width);
+    }
+
+    // 64-bit FNV-1a hash of the UTF-8 bytes of the word, with a final mixing step
+    private static long hash(String word) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c >= 128)   // not ASCII: hash the real UTF-8 bytes
+                return hash(word.getBytes(StandardCharsets.UTF_8), -1);
+            h = (h ^ c) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long hash(byte [] bytes, int length) {
+        if (length < 0)
+            length = bytes.length;
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++)
+            h = (h ^ (bytes[i] & 0xFF)) * 0x100000001b3L;
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // java CountMinSketch [epsilon delta] file1 [file2 ...]
+    // Compares the sketch with exact counting on every file
+    public static void main(String[] args) throws IOException {
+        double epsilon = 0.0005, delta = 0.01;
+        int first = 0;
+        if (args.length > 2 && args[0].matches("[0-9.]+")) {
+            epsilon = Double.parseDouble(args[0]);
+            delta = Double.parseDouble(args[1]);
+            first = 2;
+        }
+
+        for (String name : Arrays.copyOfRange(args, first, args.length)) {
+            File file = new File(name);
+
+            // exact answer with the HashMap
+            Map<String, Integer> exact = new HashMap<String, Integer>();
+            MappedTokenizer tokenizer = new MappedTokenizer(file);
+            while (tokenizer.hasNext())
+                exact.merge(tokenizer.next(), 1, Integer::sum);
+            tokenizer.close();
+            long exactBytes = hashMapBytes(exact);
+
+            // the same file in two halves, each into its own sketch, then merged
+            long [] bounds = MappedTokenizer.split(file, 2);
+            CountMinSketch sketch = withError(epsilon, delta);
+            for (int part = 0; part < 2; part++) {
+                CountMinSketch partSketch = withError(epsilon, delta);
+                tokenizer = new MappedTokenizer(file, bounds[part], bounds[part + 1]);
+                while (tokenizer.advance())
+                    partSketch.add(tokenizer.wordBytes(), tokenizer.wordLength());
+                tokenizer.close();
+                sketch.merge(partSketch);
+            }
+
+            long maxError = 0, sumError = 0;
+            int withinBound = 0;
+            double bound = epsilon * sketch.getTotal();
+            for (Map.Entry<String, Integer> e : exact.entrySet()) {
+                long error = sketch.estimate(e.getKey()) - e.getValue();
+                maxError = Math.max(maxError, error);
+                sumError += error;
+                if (error <= bound)
+                    withinBound++;
+            }
+
+            WordCount exactMax = null;
+            for (Map.Entry<String, Integer> e : exact.entrySet())
+                if (exactMax == null || e.getValue() > exactMax.getCount())
+                    exactMax = new WordCount(e.getKey(), e.getValue());
+
+            System.out.println(name + ": " + sketch.getTotal() + " words, " + exact.size() + " distinct");
+            System.out.printf("  exact HashMap:      about %,d bytes (estimated)%n", exactBytes);
+            System.out.printf("  Count-Min %d x %d: %,d bytes (epsilon %.4f, delta %.2f)%n",
+                    sketch.getDepth(), sketch.getWidth(), sketch.sizeInBytes(), epsilon, delta);
+            // a file without words has no most frequent word: print null and 0 like the other modes
+            System.out.println("  most frequent: exact " + exactMax + ", sketch estimate "
+                    + ((exactMax == null) ? 0 : sketch.estimate(exactMax.getWord())));
+            int distinct = Math.max(exact.size(), 1);
+            System.out.printf("  overestimate: average %.2f, max %d; %.2f%% of words within epsilon * n = %.1f%n",
+                    (double) sumError / distinct, maxError, 100.0 * withinBound / distinct, bound);
+        }
+    }
+
+    // Approximate memory of a HashMap<String, Integer> on a 64-bit JVM with compressed
+    // references: per entry a HashMap.Node (32 bytes), an Integer (16), a String (24)
+    // and its byte [] (16 + length, rounded up to 8), plus 4 bytes per table slot
+    private static long hashMapBytes(Map<String, Integer> map) {
+        long bytes = 48;
+        int slots = Integer.highestOneBit(Math.max(1, (int) (map.size() / 0.75)) * 2 - 1);
+        bytes += 16 + 4L * slots;
+        for (String word : map.keySet())
+            bytes += 32 + 16 + 24 + ((16 + word.length() + 7) / 8) * 8;
+        return bytes;
+    }
+}
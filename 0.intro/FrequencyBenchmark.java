@@ -0,0 +1,109 @@
+/*
+ * FrequencyBenchmark.java
+ * Benchmark of the word counting strategies.
+ *
+ * FrequencyTest times one run of each method, printing included, with a cold JVM.
+ * This harness does what a benchmark framework such as JMH would do:
+ *   - warm-up iterations first, so the JIT has compiled the code before we measure;
+ *   - nothing is printed inside the timed region (the findMax methods return the answer);
+ *   - every answer goes into a sink, so the JIT cannot drop the work as unused;
+ *   - many measured iterations, reported as throughput and percentiles;
+ *   - bytes allocated per call, from the JVM's per-thread allocation counter.
+ *
+ * The inputs are windows of 1,000 / 10,000 / 100,000 consecutive words taken at
+ * random places in the words of the given corpora.
+ * To add a strategy, add a line to STRATEGIES.
+ */
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.function.Function;
+
+public class FrequencyBenchmark {
+    private static final Map<String, Function<List<String>, WordCount>> STRATEGIES = new LinkedHashMap<>();
+    static {
+        STRATEGIES.put("naive", MaxFrequency::findMax);
+        STRATEGIES.put("pruned", MaxFrequency::findMaxPruned);
+        STRATEGIES.put("sorted", MaxFrequency::findMaxSorted);
+        STRATEGIES.put("smart", words -> MaxFrequencySmart.findMax(words.iterator()));
+    }
+
+    // these strategies are O(n^2): do not run them on big inputs
+    private static final Set<String> QUADRATIC = Set.of("naive", "pruned");
+    private static final int QUADRATIC_MAX_WORDS = 20000;
+
+    private static final int [] SIZES = {1000, 10000, 100000};
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+    private static final int MIN_ITERATIONS = 5;
+
+    private static volatile int sink;   // keeps the answers alive
+
+    // java FrequencyBenchmark corpus1 [corpus2 ...]
+    public static void main(String[] args) throws IOException {
+        List<String> corpus = new ArrayList<String>();
+        for (String name : args) {
+            MappedTokenizer tokenizer = new MappedTokenizer(new File(name));
+            while (tokenizer.hasNext())
+                corpus.add(tokenizer.next());
+            tokenizer.close();
+        }
+        System.out.println("Corpus: " + corpus.size() + " words from " + Arrays.toString(args));
+        System.out.printf("%-8s %8s %12s %10s %10s %10s %10s %14s%n",
+                "strategy", "words", "ops/s", "mean ms", "p50 ms", "p90 ms", "p99 ms", "bytes/op");
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        Random random = new Random(445);
+
+        for (int size : SIZES) {
+            if (size > corpus.size())
+                continue;
+            int start = random.nextInt(corpus.size() - size + 1);
+            List<String> words = new ArrayList<String>(corpus.subList(start, start + size));
+
+            for (Map.Entry<String, Function<List<String>, WordCount>> s : STRATEGIES.entrySet()) {
+                if (QUADRATIC.contains(s.getKey()) && size > QUADRATIC_MAX_WORDS)
+                    continue;
+                Function<List<String>, WordCount> strategy = s.getValue();
+
+                // warm-up
+                long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+                while (System.nanoTime() < warmupEnd)
+                    sink += strategy.apply(words).getCount();
+
+                // measurement
+                List<Long> times = new ArrayList<Long>();
+                long allocated = 0;
+                long measureEnd = System.nanoTime() + MEASURE_NANOS;
+                while (System.nanoTime() < measureEnd || times.size() < MIN_ITERATIONS) {
+                    long bytesBefore = threads.getThreadAllocatedBytes(thread);
+                    long startTime = System.nanoTime();
+                    WordCount answer = strategy.apply(words);
+                    long endTime = System.nanoTime();
+                    allocated += threads.getThreadAllocatedBytes(thread) - bytesBefore;
+                    sink += answer.getCount();
+                    times.add(endTime - startTime);
+                }
+
+                Collections.sort(times);
+                long total = 0;
+                for (long t : times)
+                    total += t;
+                double mean = (double) total / times.size();
+                System.out.printf("%-8s %8d %12.1f %10.3f %10.3f %10.3f %10.3f %,14d%n",
+                        s.getKey(), size, 1e9 / mean, mean / 1e6,
+                        percentile(times, 50) / 1e6, percentile(times, 90) / 1e6,
+                        percentile(times, 99) / 1e6, allocated / times.size());
+            }
+        }
+    }
+
+    // p-th percentile of the sorted times
+    private static long percentile(List<Long> sorted, int p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+}
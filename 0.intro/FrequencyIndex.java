@@ -0,0 +1,265 @@
+/*
+ * FrequencyIndex.java
+ * Saves a word -> count table to a compact binary file, and reads it back by
+ * memory-mapping the file, so that a corpus needs to be tokenized only once.
+ *
+ * File layout (all ints are 4 bytes, big-endian):
+ *   header:    magic "WFIX", version, number of words, restart interval, number of restarts,
+ *              number of the entry with the most frequent word (-1 if none)
+ *   restarts:  offset of every restart entry inside the data section
+ *   data:      the entries, sorted by the UTF-8 bytes of the word
+ *
+ * Entry: varint shared, varint suffixLength, suffix bytes, varint count
+ *   The word is the first `shared` bytes of the previous word followed by the suffix
+ *   (prefix compression: sorted words often start like their neighbours).
+ *   Every restartInterval-th entry stores its whole word (shared = 0), so a lookup
+ *   binary-searches the restart entries and then decodes at most restartInterval entries.
+ * Varint: 7 bits per byte, lowest bits first, high bit set on all bytes but the last.
+ *
+ * The most frequent word is saved by the caller rather than found from the counts,
+ * because among words with the same count the one that reached it first in the text
+ * wins (as in MaxFrequencySmart), and the counts alone do not tell which one that is.
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+
+public class FrequencyIndex {
+    private static final int MAGIC = 0x5746_4958;   // "WFIX"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 24;
+    private static final int RESTART_INTERVAL = 16;
+
+    private final ByteBuffer data;      // the data section of the mapped file
+    private final int [] restarts;
+    private final int size;
+    private final int restartInterval;
+    private final int mostFrequent;     // entry number, -1 if the index is empty
+
+    private FrequencyIndex(ByteBuffer data, int [] restarts, int size, int restartInterval, int mostFrequent) {
+        this.data = data;
+        this.restarts = restarts;
+        this.size = size;
+        this.restartInterval = restartInterval;
+        this.mostFrequent = mostFrequent;
+    }
+
+    // Writes all the words of counts with their counts to file;
+    // mostFrequent is one of the words, or null if counts is empty
+    public static void write(WordCounter counts, String mostFrequent, File file) throws IOException {
+        byte [][] unsorted = new byte[counts.size()][];
+        int [] unsortedCounts = new int[counts.size()];
+        int [] n = {0};
+        counts.forEach((word, count) -> {
+            unsorted[n[0]] = word.getBytes(StandardCharsets.UTF_8);
+            unsortedCounts[n[0]++] = count;
+        });
+
+        Integer [] order = new Integer[unsorted.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (i, j) -> Arrays.compareUnsigned(unsorted[i], unsorted[j]));
+        byte [][] words = new byte[order.length][];
+        int [] wordCounts = new int[order.length];
+        int mostFrequentEntry = -1;
+        byte [] mostFrequentBytes = (mostFrequent == null) ? null : mostFrequent.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < order.length; i++) {
+            words[i] = unsorted[order[i]];
+            wordCounts[i] = unsortedCounts[order[i]];
+            if (Arrays.equals(words[i], mostFrequentBytes))
+                mostFrequentEntry = i;
+        }
+        if (mostFrequent != null && mostFrequentEntry < 0)
+            throw new IllegalArgumentException("'" + mostFrequent + "' is not one of the counted words");
+
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        int [] restarts = new int[(words.length + RESTART_INTERVAL - 1) / RESTART_INTERVAL];
+        byte [] previous = new byte[0];
+        for (int i = 0; i < words.length; i++) {
+            int shared = 0;
+            if (i % RESTART_INTERVAL == 0)
+                restarts[i / RESTART_INTERVAL] = entries.size();
+            else
+                shared = Arrays.mismatch(previous, words[i]);   // words are distinct and sorted: never -1
+            writeVarint(entries, shared);
+            writeVarint(entries, words[i].length - shared);
+            entries.write(words[i], shared, words[i].length - shared);
+            writeVarint(entries, wordCounts[i]);
+            previous = words[i];
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(words.length);
+            out.writeInt(RESTART_INTERVAL);
+            out.writeInt(restarts.length);
+            out.writeInt(mostFrequentEntry);
+            for (int r : restarts)
+                out.writeInt(r);
+            entries.writeTo(out);
+        }
+    } // end write
+
+    // Maps an index file written by write(); the file must be smaller than 2 GB
+    public static FrequencyIndex open(File file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+            throw new IOException(file + " is not a frequency index");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException(file + " has unsupported version " + buffer.getInt(4));
+
+        int size = buffer.getInt(8);
+        int restartInterval = buffer.getInt(12);
+        int [] restarts = new int[buffer.getInt(16)];
+        int mostFrequent = buffer.getInt(20);
+        for (int i = 0; i < restarts.length; i++)
+            restarts[i] = buffer.getInt(HEADER_SIZE + 4 * i);
+
+        buffer.position(HEADER_SIZE + 4 * restarts.length);
+        return new FrequencyIndex(buffer.slice(), restarts, size, restartInterval, mostFrequent);
+    } // end open
+
+    // Number of distinct words
+    public int size() {
+        return size;
+    }
+
+    // Count of word, 0 if the word is not in the index
+    public int get(String word) {
+        byte [] key = word.getBytes(StandardCharsets.UTF_8);
+
+        // last restart entry whose word is <= key
+        int low = 0, high = restarts.length - 1, block = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compareRestart(restarts[mid], key) <= 0) {
+                block = mid;
+                low = mid + 1;
+            }
+            else
+                high = mid - 1;
+        }
+        if (block < 0)
+            return 0;
+
+        // decode the entries of this block until the key is found or passed
+        Cursor c = new Cursor(restarts[block]);
+        int entries = Math.min(restartInterval, size - block * restartInterval);
+        for (int i = 0; i < entries; i++) {
+            c.next();
+            int cmp = Arrays.compareUnsigned(c.word, 0, c.length, key, 0, key.length);
+            if (cmp == 0)
+                return c.count;
+            if (cmp > 0)
+                break;
+        }
+        return 0;
+    } // end get
+
+    // The most frequent word with its count, or (null, 0) if the index is empty
+    public WordCount mostFrequent() {
+        if (mostFrequent < 0)
+            return new WordCount(null, 0);
+        // decode from the restart entry before it
+        Cursor c = new Cursor(restarts[mostFrequent / restartInterval]);
+        for (int i = 0; i <= mostFrequent % restartInterval; i++)
+            c.next();
+        return new WordCount(new String(c.word, 0, c.length, StandardCharsets.UTF_8), c.count);
+    }
+
+    // Calls action.accept(word, count) for every word in sorted order
+    public void forEach(ObjIntConsumer<String> action) {
+        Cursor c = new Cursor(0);
+        for (int i = 0; i < size; i++) {
+            c.next();
+            action.accept(new String(c.word, 0, c.length, StandardCharsets.UTF_8), c.count);
+        }
+    }
+
+    // Reads the entries one after another starting at a restart entry
+    private class Cursor {
+        int position;
+        byte [] word = new byte[64];
+        int length;
+        int count;
+
+        Cursor(int position) {
+            this.position = position;
+        }
+
+        void next() {
+            int shared = readVarint();
+            int suffix = readVarint();
+            length = shared + suffix;
+            if (length > word.length)
+                word = Arrays.copyOf(word, Math.max(length, 2 * word.length));
+            data.get(position, word, shared, suffix);
+            position += suffix;
+            count = readVarint();
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data.get(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0)
+                    return value;
+            }
+        }
+    } // end Cursor
+
+    private int compareRestart(int position, byte [] key) {
+        Cursor c = new Cursor(position);
+        c.next();
+        return Arrays.compareUnsigned(c.word, 0, c.length, key, 0, key.length);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    // java FrequencyIndex build <text file> <index file>
+    // java FrequencyIndex query <index file> word1 [word2 ...]
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("build")) {
+            long startTime = System.nanoTime();
+            WordCounter counts = new WordCounter();
+            MappedTokenizer tokenizer = new MappedTokenizer(new File(args[1]));
+            WordCount max = MaxFrequencySmart.findMax(tokenizer, counts);
+            tokenizer.close();
+            File indexFile = new File(args[2]);
+            write(counts, max.getWord(), indexFile);
+            long duration = (System.nanoTime() - startTime) / 1000000;
+            System.out.println("Indexed " + counts.size() + " words into " + indexFile.length()
+                    + " bytes in " + duration + " ms");
+        }
+        else if (args.length >= 2 && args[0].equals("query")) {
+            long startTime = System.nanoTime();
+            FrequencyIndex index = open(new File(args[1]));
+            long duration = (System.nanoTime() - startTime) / 1000;
+            System.out.println("Opened index of " + index.size() + " words in " + duration + " microseconds");
+            WordCount max = index.mostFrequent();
+            System.out.println("  the most frequent word is '" + max.getWord() + "' which occurs " + max.getCount() + " times");
+            for (int i = 2; i < args.length; i++)
+                System.out.println("  '" + args[i] + "' occurs " + index.get(args[i]) + " times");
+        }
+        else
+            System.out.println("Usage: java FrequencyIndex build <text file> <index file>\n"
+                    + "       java FrequencyIndex query <index file> word1 [word2 ...]");
+    }
+}
@@ -3,19 +3,54 @@ import java.util.*;
 
 
 public class FrequencyTest  {
-	public static void main(String[] args) throws FileNotFoundException{ 
+	// a few of the most common English words, which are usually not interesting to count
+	static final List<String> STOPWORDS = Arrays.asList(
+			"the", "and", "of", "a", "an", "to", "in", "is", "it", "that", "i", "he", "she",
+			"was", "for", "on", "as", "with", "his", "her", "at", "by", "be", "this", "had",
+			"not", "but", "from", "or", "have", "you", "they", "we", "were", "are", "which");
+	
+	public static void main(String[] args) throws IOException{ 
+		File file = new File(args[0]);
+		
+		// The options [fold] [separate | strip] [stopwords] after the mode normalize
+		// the words the same way in every mode (see WordNormalizer)
+		
+		// java FrequencyTest <file> stream [options]
+		// counts directly from the file without building the list of words first
+		if (args.length > 1 && args[1].equals("stream")) {
+			countStreaming(file, normalizer(args, 2));
+			return;
+		}
+		
+		// java FrequencyTest <file> index [options]
+		// reuses the counts saved in <file>.keep.idx (<file>.fold.strip.idx etc. with options)
+		// by an earlier run
+		if (args.length > 1 && args[1].equals("index")) {
+			countIndexed(file, args.length > 2 ? Arrays.asList(args).subList(2, args.length)
+			                                   : Collections.<String>emptyList());
+			return;
+		}
+		
+		// java FrequencyTest <file> mapped [options]
+		// same as stream, but the words come from the memory-mapped byte tokenizer
+		if (args.length > 1 && args[1].equals("mapped")) {
+			countMapped(file, normalizer(args, 2));
+			return;
+		}
+		
+		// java FrequencyTest <file> [options]
+		WordNormalizer rules = normalizer(args, 1);
 		List<String> words = new ArrayList<String>();
         
-        File file = new File(args[0]);
-        
         
         //Creating Scanner instance to read File in Java
-        Scanner reader = new Scanner(file);
+        Scanner reader = new Scanner(file, "UTF-8");
      
         //Reading each word of the file using Scanner class
-        //and adding it to the list       
-        while(reader.hasNext()){
-            String w = reader.next();
+        //and adding it (normalized) to the list       
+        Iterator<String> normalized = rules.words(reader);
+        while(normalized.hasNext()){
+            String w = normalized.next();
             words.add(w);
         }  
         
@@ -41,4 +76,82 @@ public class FrequencyTest  {
         duration = (endTime - startTime)/1000000;  //divide by 1000000 to get milliseconds.
         System.out.println("Smart count in: "+ duration + " ms" );
 	}
+	
+	// Single pass over the file: each word goes from the Scanner straight into
+	// the frequency table, so only the distinct words are kept in memory
+	public static void countStreaming(File file, WordNormalizer rules) throws FileNotFoundException{
+		Scanner reader = new Scanner(file, "UTF-8");
+		
+		long startTime = System.nanoTime();
+		
+		MaxFrequencySmart.count(rules.words(reader));
+		
+		long endTime = System.nanoTime();
+		
+		reader.close();
+		
+		long duration = (endTime - startTime)/1000000;  //divide by 1000000 to get milliseconds.
+		System.out.println("Streaming count (read + count) in: "+ duration + " ms" );
+	}
+	
+	public static void countMapped(File file, WordNormalizer rules) throws IOException{
+		long startTime = System.nanoTime();
+		
+		MappedTokenizer tokenizer = new MappedTokenizer(file).normalizer(rules);
+		MaxFrequencySmart.count(tokenizer);
+		tokenizer.close();
+		
+		long endTime = System.nanoTime();
+		
+		long duration = (endTime - startTime)/1000000;  //divide by 1000000 to get milliseconds.
+		System.out.println("Mapped count (read + count) in: "+ duration + " ms" );
+	}
+	
+	// The normalization options in args[from ..]
+	private static WordNormalizer normalizer(String[] args, int from) {
+		List<String> options = Arrays.asList(args).subList(Math.min(from, args.length), args.length);
+		return WordNormalizer.fromOptions(options, STOPWORDS);
+	}
+	
+	// The first run tokenizes the file and saves the counts next to it;
+	// later runs only map the saved counts. Every set of options has its own
+	// index file, since the options change the words that are counted.
+	public static void countIndexed(File file, List<String> options) throws IOException{
+		String suffix = "";
+		for (String option : Arrays.asList("fold", "separate", "strip", "stopwords"))
+			if (options.contains(option))
+				suffix += "." + option;
+		if (!options.contains("separate") && !options.contains("strip"))
+			suffix += ".keep";
+		File indexFile = new File(file.getPath() + suffix + ".idx");
+		long startTime = System.nanoTime();
+		
+		FrequencyIndex index = null;
+		if (indexFile.exists() && indexFile.lastModified() >= file.lastModified()) {
+			try {
+				index = FrequencyIndex.open(indexFile);
+			}
+			catch (IOException e) {
+				System.out.println(e.getMessage() + ", building it again");
+			}
+		}
+		if (index == null) {
+			WordCounter counts = new WordCounter();
+			MappedTokenizer tokenizer = new MappedTokenizer(file)
+					.normalizer(WordNormalizer.fromOptions(options, STOPWORDS));
+			// the same tie-break as the other modes: the word that reached the max count first
+			WordCount first = MaxFrequencySmart.findMax(tokenizer, counts);
+			tokenizer.close();
+			FrequencyIndex.write(counts, first.getWord(), indexFile);
+			System.out.println("Saved the counts to " + indexFile);
+			index = FrequencyIndex.open(indexFile);
+		}
+		WordCount max = index.mostFrequent();
+		
+		long endTime = System.nanoTime();
+		
+		System.out.println("The most frequent word is '"+max.getWord()+"' which occurs "+max.getCount()+" times.");
+		long duration = (endTime - startTime)/1000000;  //divide by 1000000 to get milliseconds.
+		System.out.println("Indexed count in: "+ duration + " ms" );
+	}
 }
@@ -0,0 +1,204 @@
+/*
+ * MappedTokenizer.java
+ * Splits a text file into words by scanning the raw bytes of the memory-mapped file.
+ *
+ * What a word is - where words end, case folding, punctuation, stopwords - is
+ * decided by a WordNormalizer (see there); by default words are split at
+ * punctuation and whitespace. The normalization is done while the bytes are
+ * copied, with the normalizer's lookup tables, so it costs nothing extra per word.
+ *
+ * Two ways to use it:
+ *   - as an Iterator<String>, which makes it a drop-in source for MaxFrequencySmart.count
+ *     (one String is created per word returned by next());
+ *   - with advance() / wordBytes() / wordLength(), which walk over the words without
+ *     creating any objects: the bytes of the current word are copied into one reusable array.
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+public class MappedTokenizer implements Iterator<String>, Closeable {
+    // a single mapping cannot be larger than 2 GB, so big files are mapped piece by piece
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private WordNormalizer rules = new WordNormalizer();
+
+    private final FileChannel channel;
+    private final long end;             // file offset where tokenizing stops
+    private MappedByteBuffer buffer;    // currently mapped part of the file
+    private long windowStart;           // file offset of the first byte in buffer
+
+    private byte [] word = new byte[64];  // bytes of the current word - reused for every word
+    private int wordLength;
+    private long wordOffset;            // file offset of the first byte of the current word
+    private boolean pending;            // hasNext() found a word which next() has not returned yet
+
+    public MappedTokenizer(File file) throws IOException {
+        this(file, 0, -1);
+    }
+
+    // Tokenizes only the bytes start .. end-1 of the file (end = -1 means the end of file).
+    // Both ends should be word boundaries, see split().
+    public MappedTokenizer(File file, long start, long end) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.end = (end < 0) ? channel.size() : end;
+        windowStart = start;
+        buffer = map(start);
+    }
+
+    // Uses these rules (shared, not copied) to find the words; returns this tokenizer
+    public MappedTokenizer normalizer(WordNormalizer rules) {
+        this.rules = rules;
+        return this;
+    }
+
+    public WordNormalizer normalizer() {
+        return rules;
+    }
+
+    // Turns case folding on or off; returns this tokenizer
+    public MappedTokenizer foldCase(boolean on) {
+        rules.foldCase(on);
+        return this;
+    }
+
+    // Sets how punctuation is treated; returns this tokenizer
+    public MappedTokenizer punctuation(WordNormalizer.Punctuation mode) {
+        rules.punctuation(mode);
+        return this;
+    }
+
+    // Words to skip, or null for none; returns this tokenizer
+    public MappedTokenizer stopwords(Collection<String> words) {
+        rules.stopwords(words);
+        return this;
+    }
+
+    // Divides the file into the given number of pieces of about the same size
+    // and returns the offsets where they start, followed by the file size.
+    // Every offset is moved forward to just after whitespace, so no word is cut
+    // in two whatever the punctuation setting.
+    public static long [] split(File file, int pieces) throws IOException {
+        long [] bounds = new long[pieces + 1];
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            ByteBuffer pair = ByteBuffer.allocate(2);
+            bounds[pieces] = size;
+            for (int i = 1; i < pieces; i++) {
+                long pos = Math.max(bounds[i-1], size * i / pieces);
+                // pos is a safe place when byte pos-1 or byte pos is whitespace
+                while (pos > 0 && pos < size) {
+                    pair.clear();
+                    ch.read(pair, pos - 1);
+                    if (WordNormalizer.SPACE_BYTE[pair.get(0) & 0xFF] || WordNormalizer.SPACE_BYTE[pair.get(1) & 0xFF])
+                        break;
+                    pos++;
+                }
+                bounds[i] = pos;
+            }
+        }
+        return bounds;
+    } // end split
+
+    // Moves to the next word in the file.
+    // Returns false when there are no more words.
+    public boolean advance() {
+        pending = false;
+        boolean [] separator = rules.separator, kept = rules.kept;
+        byte [] fold = rules.fold;
+
+        while (true) {
+            wordLength = 0;
+
+            // skip separators
+            byte b;
+            do {
+                if (!buffer.hasRemaining() && !nextWindow())
+                    return false;
+                b = buffer.get();
+            } while (separator[b & 0xFF]);
+            wordOffset = windowStart + buffer.position() - 1;
+
+            // copy the word - it can continue into the next window
+            while (true) {
+                if (kept[b & 0xFF]) {
+                    if (wordLength == word.length)
+                        word = Arrays.copyOf(word, 2 * word.length);
+                    word[wordLength++] = fold[b & 0xFF];
+                }
+
+                if (!buffer.hasRemaining() && !nextWindow())
+                    break;
+                b = buffer.get();
+                if (separator[b & 0xFF])
+                    break;
+            }
+
+            // skip tokens that were only punctuation (STRIP) and stopwords
+            if (wordLength > 0 && !rules.isStopword(word, wordLength))
+                return true;
+        }
+    } // end advance
+
+    // The bytes of the current word are wordBytes()[0 .. wordLength()-1].
+    // The array is overwritten by the next call to advance().
+    public byte [] wordBytes() {
+        return word;
+    }
+
+    public int wordLength() {
+        return wordLength;
+    }
+
+    public long wordOffset() {
+        return wordOffset;
+    }
+
+    // Creates a String with the current word
+    public String word() {
+        return new String(word, 0, wordLength, StandardCharsets.UTF_8);
+    }
+
+    public boolean hasNext() {
+        if (!pending)
+            pending = advance();
+        return pending;
+    }
+
+    public String next() {
+        if (!hasNext())
+            throw new NoSuchElementException("No more words in the file");
+        pending = false;
+        return word();
+    }
+
+    public void close() throws IOException {
+        buffer = null;
+        channel.close();
+    }
+
+    // Maps the next window of the file; returns false at the end of the input
+    private boolean nextWindow() {
+        long nextStart = windowStart + buffer.limit();
+        if (nextStart >= end)
+            return false;
+        windowStart = nextStart;
+        buffer = map(nextStart);
+        return true;
+    }
+
+    private MappedByteBuffer map(long start) {
+        try {
+            long size = Math.min(WINDOW_SIZE, end - start);
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -9,6 +9,12 @@ import java.io.*;
  */
 public class MaxFrequency {
     public static void count(List<String> words) {           
+        WordCount max = findMax(words);
+        System.out.println("The most frequent word is '"+max.getWord()+"' which occurs "+max.getCount()+" times.");
+    }
+
+    // Same as count but returns the answer instead of printing it
+    public static WordCount findMax(List<String> words) {           
         int maxCount = 0;
         String maxWord = null;
         
@@ -29,7 +35,103 @@ public class MaxFrequency {
             }    
         }
         
-        System.out.println("The most frequent word is '"+maxWord+"' which occurs "+maxCount+" times.");      
-       
+        return new WordCount(maxWord, maxCount);
+    }
+
+    // Same as findMax over a text encoded as word ids (see WordDictionary):
+    // the inner loop compares ints instead of calling String.equals
+    public static WordCount findMax(int [] tokens, WordDictionary dict) {
+        int maxCount = 0;
+        int maxId = -1;
+
+        for (int i = 0; i < tokens.length; i++) {
+            int currentId = tokens[i];
+            int count = 1;
+
+            for (int j = i + 1; j < tokens.length; j++) {
+                if (tokens[j] == currentId)
+                    count++;
+            }
+
+            if (count > maxCount) {
+                maxCount = count;
+                maxId = currentId;
+            }
+        }
+
+        return new WordCount((maxId < 0) ? null : dict.wordOf(maxId), maxCount);
+    }
+
+    // Same answer as findMax, still without any hash table, in O(n log n):
+    // after sorting a copy of the words, equal words are next to each other,
+    // so each count is the length of a run of equal words
+    public static WordCount findMaxSorted(List<String> words) {
+        if (words.isEmpty())
+            return new WordCount(null, 0);
+
+        String [] sorted = words.toArray(new String[0]);
+        Arrays.sort(sorted);
+
+        int maxCount = 0;
+        List<String> maxWords = new ArrayList<String>();  // all words with maxCount, in sorted order
+        int runStart = 0;
+        for (int i = 1; i <= sorted.length; i++) {
+            if (i == sorted.length || !sorted[i].equals(sorted[runStart])) {
+                int count = i - runStart;
+                if (count > maxCount) {
+                    maxCount = count;
+                    maxWords.clear();
+                }
+                if (count == maxCount)
+                    maxWords.add(sorted[runStart]);
+                runStart = i;
+            }
+        }
+
+        // findMax reports the tied word that appears first in the original list
+        String maxWord = maxWords.get(0);
+        if (maxWords.size() > 1) {
+            for (String w : words) {
+                if (Collections.binarySearch(maxWords, w) >= 0) {
+                    maxWord = w;
+                    break;
+                }
+            }
+        }
+        return new WordCount(maxWord, maxCount);
+    }
+
+    // Same answer as findMax with no extra memory at all, but doing less work:
+    //  - a word that appeared before position i was already counted at its
+    //    first occurrence, so it is skipped instead of being counted again;
+    //  - a word at position i occurs at most n - i more times, so once
+    //    n - i <= maxCount no later word can beat maxCount and the loop stops.
+    public static WordCount findMaxPruned(List<String> words) {
+        int n = words.size();
+        int maxCount = 0;
+        String maxWord = null;
+
+        for (int i = 0; i < n && n - i > maxCount; i++) {
+            String currentWord = words.get(i);
+
+            boolean seen = false;
+            for (int j = 0; j < i && !seen; j++)
+                seen = words.get(j).equals(currentWord);
+            if (seen)
+                continue;
+
+            int count = 1;
+            for (int j = i + 1; j < n; j++) {
+                if (words.get(j).equals(currentWord))
+                    count++;
+            }
+
+            if (count > maxCount) {
+                maxCount = count;
+                maxWord = currentWord;
+            }
+        }
+
+        return new WordCount(maxWord, maxCount);
     }
 }
@@ -10,28 +10,81 @@ import java.util.*;
 public class MaxFrequencySmart {
 
     public static void count (List <String> words){
-        Map<String, Integer> dict = new HashMap<String, Integer>();
+        count(words.iterator());
+    }
+
+    // Streaming version: consumes the words one at a time, so the caller never
+    // has to keep the whole word list in memory - for example a Scanner over the
+    // file can be passed directly. Memory is proportional to the number of
+    // distinct words (the size of dict), not to the number of words in the input.
+    public static void count (Iterator <String> words){
+        WordCount max = findMax(words);
+        System.out.println("The most frequent word is '"+max.getWord()+"' which occurs "+max.getCount()+" times.");
+    }
+
+    // Words straight from the bytes of the tokenizer: no String per word
+    public static void count (MappedTokenizer words){
+        WordCount max = findMax(words);
+        System.out.println("The most frequent word is '"+max.getWord()+"' which occurs "+max.getCount()+" times.");
+    }
+
+    // Same as count but returns the answer instead of printing it
+    public static WordCount findMax (Iterator <String> words){
+        // one lookup per word: WordCounter finds the word and adds 1 to its count
+        WordCounter dict = new WordCounter();
         
+        int maxCount = 0;
+        String maxWord = null;
         
-       
+        while (words.hasNext()) {
+            String w = words.next();
+            int count = dict.increment(w);
+            if (count > maxCount) {
+                maxCount = count;
+                maxWord = w;
+            }    
+        }
         
+        return new WordCount(maxWord, maxCount);
+    }
+
+    public static WordCount findMax (MappedTokenizer words){
+        return findMax(words, new WordCounter());
+    }
+
+    // Same, counting into dict, which then holds the counts of all the words
+    public static WordCount findMax (MappedTokenizer words, WordCounter dict){
         int maxCount = 0;
         String maxWord = null;
         
-        for(int i=0; i < words.size(); i++) {
-            String w = words.get(i);
-            if (!dict.containsKey(w))
-                dict.put(w, 0);
-            int count = dict.get(w)+1;
-            dict.put(w, count);
+        while (words.advance()) {
+            int count = dict.increment(words.wordBytes(), words.wordLength());
             if (count > maxCount) {
                 maxCount = count;
-                maxWord = w;
+                maxWord = dict.lastKey();
             }    
         }
         
-        System.out.println("The most frequent word is '"+maxWord+"' which occurs "+maxCount+" times.");
-       
+        return new WordCount(maxWord, maxCount);
+    }
+
+    // Over a text encoded as word ids (see WordDictionary) no hashing is needed at all:
+    // the ids are 0 .. dict.size()-1, so they index an array of counts directly
+    public static WordCount findMax (int [] tokens, WordDictionary dict){
+        int [] counts = new int[dict.size()];
+        
+        int maxCount = 0;
+        int maxId = -1;
+        
+        for (int id : tokens) {
+            int count = ++counts[id];
+            if (count > maxCount) {
+                maxCount = count;
+                maxId = id;
+            }
+        }
+        
+        return new WordCount((maxId < 0) ? null : dict.wordOf(maxId), maxCount);
     }
 
 }
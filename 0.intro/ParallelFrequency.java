@@ -0,0 +1,169 @@
+/*
+ * ParallelFrequency.java
+ * Finds the word with max frequency using several threads.
+ *
+ * The file is cut into pieces at word boundaries (MappedTokenizer.split).
+ * Each piece is counted into its own table by a fork/join task, and the tables
+ * of two neighbouring tasks are merged when both are done, until one is left.
+ * A table gives every word an id (WordDictionary, straight from the bytes of
+ * the tokenizer, so no String per word) and keeps the counts in arrays indexed by id.
+ *
+ * The answer is the same as MaxFrequencySmart.count over a MappedTokenizer.
+ * When several words share the max count, the sequential scan reports the one
+ * that reached this count first, i.e. the one whose last occurrence comes first
+ * in the file. So besides the count we remember where each word was last seen.
+ */
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class ParallelFrequency {
+    // pieces per thread: more pieces than threads keeps all threads busy
+    // when some pieces take longer than others
+    private static final int PIECES_PER_THREAD = 4;
+
+    // The words of some pieces of the file
+    private static class PieceCounts {
+        final WordDictionary dict = new WordDictionary();
+        int [] counts = new int[1024];          // counts[id]
+        long [] lastOffsets = new long[1024];   // lastOffsets[id]: file offset of the last occurrence
+
+        // Adds n occurrences of word id, the last of them at offset
+        void add(int id, int n, long offset) {
+            if (id == counts.length) {
+                counts = Arrays.copyOf(counts, 2 * id);
+                lastOffsets = Arrays.copyOf(lastOffsets, 2 * id);
+            }
+            counts[id] += n;
+            lastOffsets[id] = Math.max(lastOffsets[id], offset);
+        }
+    }
+
+    // Counts the words of pieces from .. to-1
+    @SuppressWarnings("serial")
+    private static class CountTask extends RecursiveTask<PieceCounts> {
+        private final File file;
+        private final WordNormalizer rules;
+        private final long [] bounds;
+        private final int from, to;
+
+        CountTask(File file, WordNormalizer rules, long [] bounds, int from, int to) {
+            this.file = file;
+            this.rules = rules;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected PieceCounts compute() {
+            if (to - from == 1)
+                return countPiece(file, rules, bounds[from], bounds[to]);
+
+            int mid = (from + to) / 2;
+            CountTask left = new CountTask(file, rules, bounds, from, mid);
+            CountTask right = new CountTask(file, rules, bounds, mid, to);
+            left.fork();
+            PieceCounts rightCounts = right.compute();
+            PieceCounts leftCounts = left.join();
+            return merge(leftCounts, rightCounts);
+        }
+    } // end CountTask
+
+    public static void count(File file, int threads) throws IOException {
+        WordCount max = findMax(file, threads);
+        System.out.println("The most frequent word is '"+max.getWord()+"' which occurs "+max.getCount()+" times.");
+    }
+
+    // The words as MappedTokenizer finds them by default
+    public static WordCount findMax(File file, int threads) throws IOException {
+        return findMax(file, threads, new WordNormalizer());
+    }
+
+    public static WordCount findMax(File file, int threads, WordNormalizer rules) throws IOException {
+        long [] bounds = MappedTokenizer.split(file, threads * PIECES_PER_THREAD);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        PieceCounts counts;
+        try {
+            counts = pool.invoke(new CountTask(file, rules, bounds, 0, bounds.length - 1));
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        int max = -1;
+        for (int id = 0; id < counts.dict.size(); id++)
+            if (max < 0 || counts.counts[id] > counts.counts[max]
+                    || (counts.counts[id] == counts.counts[max] && counts.lastOffsets[id] < counts.lastOffsets[max]))
+                max = id;
+        return (max < 0) ? new WordCount(null, 0) : new WordCount(counts.dict.wordOf(max), counts.counts[max]);
+    }
+
+    private static PieceCounts countPiece(File file, WordNormalizer rules, long start, long end) {
+        PieceCounts piece = new PieceCounts();
+        try (MappedTokenizer tokenizer = new MappedTokenizer(file, start, end).normalizer(rules)) {
+            while (tokenizer.advance())
+                piece.add(piece.dict.idOf(tokenizer.wordBytes(), tokenizer.wordLength()), 1, tokenizer.wordOffset());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return piece;
+    }
+
+    // Adds the smaller table into the bigger one; the pieces of right come after left in the file
+    private static PieceCounts merge(PieceCounts left, PieceCounts right) {
+        PieceCounts into = (left.dict.size() >= right.dict.size()) ? left : right;
+        PieceCounts from = (into == left) ? right : left;
+        for (int id = 0; id < from.dict.size(); id++)
+            into.add(into.dict.idOf(from.dict.wordOf(id)), from.counts[id], from.lastOffsets[id]);
+        return into;
+    }
+
+    // java ParallelFrequency [maxThreads] file1 [file2 ...] [fold] [separate | strip] [stopwords]
+    // Counts every file with 1, 2, 4, ... up to maxThreads threads (default: all processors)
+    // and reports the times. The options normalize the words as in FrequencyTest.
+    public static void main(String[] args) throws IOException {
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        int first = 0;
+        if (args.length > 0 && args[0].matches("\\d+")) {
+            maxThreads = Integer.parseInt(args[0]);
+            first = 1;
+        }
+        List<String> names = new ArrayList<String>();
+        List<String> options = new ArrayList<String>();
+        for (String arg : Arrays.copyOfRange(args, first, args.length))
+            (Arrays.asList("fold", "separate", "strip", "keep", "stopwords").contains(arg) ? options : names).add(arg);
+        WordNormalizer rules = WordNormalizer.fromOptions(options, FrequencyTest.STOPWORDS);
+        final int runs = 10;
+
+        for (String name : names) {
+            File file = new File(name);
+            MappedTokenizer tokenizer = new MappedTokenizer(file).normalizer(rules);
+            WordCount expected = MaxFrequencySmart.findMax(tokenizer);
+            tokenizer.close();
+            System.out.println(name + ": sequential answer " + expected);
+
+            for (int threads = 1; threads <= maxThreads; threads = nextThreads(threads, maxThreads)) {
+                findMax(file, threads, rules);   // warm up
+
+                long best = Long.MAX_VALUE;
+                WordCount max = null;
+                for (int r = 0; r < runs; r++) {
+                    long startTime = System.nanoTime();
+                    max = findMax(file, threads, rules);
+                    best = Math.min(best, System.nanoTime() - startTime);
+                }
+                System.out.printf("  %2d threads: best of %d runs %.2f ms %s%n", threads, runs,
+                        best / 1e6, max.equals(expected) ? "" : "WRONG ANSWER " + max);
+            }
+        }
+    }
+
+    private static int nextThreads(int threads, int maxThreads) {
+        if (threads == maxThreads)
+            return maxThreads + 1;
+        return Math.min(2 * threads, maxThreads);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * SlidingFrequency.java
+ * Word frequencies of a stream that is still growing: words are added one at a time
+ * and the most frequent word is known after every word, without recounting.
+ *
+ * Optionally only a window of the most recent words is counted: the last N words,
+ * or the words added during the last T milliseconds, or both. Words that fall out
+ * of the window are subtracted again.
+ *
+ * Keeping the max under both +1 and -1 is done with buckets: bucket c holds the
+ * words that occur exactly c times, and maxCount is the highest non-empty bucket.
+ * A word moves one bucket up or down per change, so when the top bucket becomes
+ * empty the new max is the bucket just below it. Every operation is O(1).
+ * Inside a bucket the words stay in the order they arrived there, so with no window
+ * the answer is the same as MaxFrequencySmart: the first word to reach the max count.
+ */
+
+import java.io.*;
+import java.util.*;
+
+public class SlidingFrequency {
+    private static class Entry {
+        final String word;
+        final long time;
+
+        Entry(String word, long time) {
+            this.word = word;
+            this.time = time;
+        }
+    }
+
+    private final int maxWords;     // window length in words, 0 = no limit
+    private final long maxMillis;   // window length in milliseconds, 0 = no limit
+
+    private final Map<String, Integer> counts = new HashMap<String, Integer>();
+    private final List<LinkedHashSet<String>> buckets = new ArrayList<LinkedHashSet<String>>();
+    private int maxCount;
+    private final ArrayDeque<Entry> window = new ArrayDeque<Entry>();   // oldest word first
+
+    // Counts all the words ever added
+    public SlidingFrequency() {
+        this(0, 0);
+    }
+
+    // Counts only the last maxWords words and/or the words of the last maxMillis milliseconds;
+    // 0 means no limit of that kind
+    public SlidingFrequency(int maxWords, long maxMillis) {
+        if (maxWords < 0 || maxMillis < 0)
+            throw new IllegalArgumentException("Window size cannot be negative");
+        this.maxWords = maxWords;
+        this.maxMillis = maxMillis;
+        buckets.add(null);   // there is no bucket for count 0
+    }
+
+    public void add(String word) {
+        add(word, System.currentTimeMillis());
+    }
+
+    // Adds a word that arrived at the given time (in milliseconds);
+    // times should not decrease from one call to the next
+    public void add(String word, long time) {
+        int count = counts.getOrDefault(word, 0) + 1;
+        counts.put(word, count);
+        move(word, count - 1, count);
+        if (count > maxCount)
+            maxCount = count;
+
+        if (maxWords > 0 || maxMillis > 0) {
+            window.addLast(new Entry(word, time));
+            if (maxWords > 0 && window.size() > maxWords)
+                remove(window.removeFirst().word);
+            expire(time);
+        }
+    } // end add
+
+    // Removes the words older than maxMillis at time now.
+    // Called by add; call it directly to age the window while no words arrive.
+    public void expire(long now) {
+        if (maxMillis == 0)
+            return;
+        while (!window.isEmpty() && now - window.peekFirst().time >= maxMillis)
+            remove(window.removeFirst().word);
+    }
+
+    public String getMaxWord() {
+        return (maxCount == 0) ? null : buckets.get(maxCount).iterator().next();
+    }
+
+    public int getMaxCount() {
+        return maxCount;
+    }
+
+    public int getCount(String word) {
+        return counts.getOrDefault(word, 0);
+    }
+
+    // Number of distinct words currently counted
+    public int size() {
+        return counts.size();
+    }
+
+    private void remove(String word) {
+        int count = counts.get(word) - 1;
+        if (count == 0)
+            counts.remove(word);
+        else
+            counts.put(word, count);
+        move(word, count + 1, count);
+        if (buckets.get(maxCount).isEmpty())
+            maxCount--;      // the word was alone at the top; it is now in bucket maxCount - 1
+    } // end remove
+
+    // Moves word from bucket oldCount to bucket newCount (count 0 has no bucket)
+    private void move(String word, int oldCount, int newCount) {
+        if (oldCount > 0)
+            buckets.get(oldCount).remove(word);
+        if (newCount > 0) {
+            if (newCount == buckets.size())
+                buckets.add(new LinkedHashSet<String>());
+            buckets.get(newCount).add(word);
+        }
+    }
+
+    // java SlidingFrequency <file> [windowWords]
+    // Feeds the words of the file one by one and reports the most frequent word
+    // of the last windowWords words (default 1000) as the window slides through the file
+    public static void main(String[] args) throws IOException {
+        File file = new File(args[0]);
+        int windowWords = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+
+        SlidingFrequency all = new SlidingFrequency();
+        SlidingFrequency recent = new SlidingFrequency(windowWords, 0);
+
+        MappedTokenizer tokenizer = new MappedTokenizer(file);
+        int n = 0;
+        while (tokenizer.hasNext()) {
+            String w = tokenizer.next();
+            all.add(w);
+            recent.add(w);
+            n++;
+            if (n % (10 * windowWords) == 0)
+                System.out.println("After " + n + " words: last " + windowWords + " words '"
+                        + recent.getMaxWord() + "' (" + recent.getMaxCount() + "), all words '"
+                        + all.getMaxWord() + "' (" + all.getMaxCount() + ")");
+        }
+        tokenizer.close();
+
+        System.out.println("All " + n + " words: '" + all.getMaxWord() + "' (" + all.getMaxCount() + ")");
+        tokenizer = new MappedTokenizer(file);
+        MaxFrequencySmart.count(tokenizer);
+        tokenizer.close();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * SpaceSaving.java
+ * Approximate most frequent words of a stream using a fixed number of counters
+ * (the Space-Saving algorithm of Metwally, Agrawal and El Abbadi).
+ *
+ * Only k words are tracked at a time. A word that is already tracked gets +1.
+ * A new word takes over the counter with the smallest count m and starts at m + 1,
+ * remembering that up to m of this count may belong to words that were replaced.
+ * Any word that occurs more than n/k times in a stream of n words is guaranteed
+ * to be tracked, and every count is too high by at most getMinCount().
+ *
+ * The counters are kept in a min-heap (by count) so that the smallest one is
+ * found in O(1) and every update costs O(log k). Memory is O(k).
+ */
+
+import java.util.*;
+
+public class SpaceSaving {
+    private static class Counter {
+        String word;
+        int count;
+        int error;      // count may be too high by at most error
+        int index;      // position of this counter in heap
+    }
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final Counter [] heap;   // heap[0] has the smallest count
+    private int size;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.counters = new HashMap<String, Counter>(2 * capacity);
+        this.heap = new Counter[capacity];
+    }
+
+    public void add(String word) {
+        Counter c = counters.get(word);
+        if (c != null) {
+            c.count++;
+            siftDown(c.index);
+        }
+        else if (size < capacity) {
+            c = new Counter();
+            c.word = word;
+            c.count = 1;
+            c.index = size;
+            heap[size++] = c;
+            counters.put(word, c);
+            siftUp(c.index);
+        }
+        else {
+            // replace the word with the smallest count
+            c = heap[0];
+            counters.remove(c.word);
+            c.word = word;
+            c.error = c.count;
+            c.count++;
+            counters.put(word, c);
+            siftDown(0);
+        }
+    } // end add
+
+    // Estimated count of word: never lower than the real count
+    public int estimate(String word) {
+        Counter c = counters.get(word);
+        return (c == null) ? getMinCount() : c.count;
+    }
+
+    // Upper bound on the overestimate of any count
+    public int getMinCount() {
+        return (size < capacity) ? 0 : heap[0].count;
+    }
+
+    // The tracked words with their estimated counts, the most frequent first
+    public List<WordCount> top() {
+        return top(size);
+    }
+
+    // The k tracked words with the highest estimated counts (fewer if fewer are
+    // tracked, none for k = 0), the most frequent first
+    public List<WordCount> top(int k) {
+        TopWords.checkK(k);
+        List<WordCount> result = new ArrayList<WordCount>(size);
+        for (int i = 0; i < size; i++)
+            result.add(new WordCount(heap[i].word, heap[i].count));
+        result.sort(TopWords.BY_FREQUENCY);
+        return new ArrayList<WordCount>(result.subList(0, Math.min(k, result.size())));
+    }
+
+    // Words that are certainly among the most frequent: their count minus the
+    // possible error is still higher than the count of any word not tracked
+    public List<WordCount> guaranteed() {
+        List<WordCount> result = new ArrayList<WordCount>();
+        int min = getMinCount();
+        for (int i = 0; i < size; i++)
+            if (heap[i].count - heap[i].error > min)
+                result.add(new WordCount(heap[i].word, heap[i].count));
+        result.sort(TopWords.BY_FREQUENCY);
+        return result;
+    }
+
+    private void siftUp(int i) {
+        Counter c = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (heap[parent].count <= c.count)
+                break;
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(c, i);
+    }
+
+    private void siftDown(int i) {
+        Counter c = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && heap[child + 1].count < heap[child].count)
+                child++;
+            if (c.count <= heap[child].count)
+                break;
+            place(heap[child], i);
+            i = child;
+        }
+        place(c, i);
+    }
+
+    private void place(Counter c, int i) {
+        heap[i] = c;
+        c.index = i;
+    }
+}
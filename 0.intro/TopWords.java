@@ -0,0 +1,94 @@
+/*
+ * TopWords.java
+ * Finds the k most frequent words, not only the most frequent one.
+ *
+ * Exact: count all words, then pass the counts through a min-heap that never
+ * holds more than k words. The root of the heap is the weakest of the current
+ * top k, so a new word gets in only if it beats the root. O(n log k) time.
+ *
+ * Approximate: SpaceSaving keeps only k counters, so it works even when the
+ * vocabulary does not fit in memory.
+ */
+
+import java.io.*;
+import java.util.*;
+
+public class TopWords {
+    // more frequent first; equal counts in alphabetical order
+    public static final Comparator<WordCount> BY_FREQUENCY =
+            Comparator.comparingInt(WordCount::getCount).reversed()
+                      .thenComparing(WordCount::getWord);
+
+    // Returns the k most frequent words in counts, the most frequent first
+    // (no words for k = 0)
+    public static List<WordCount> top(WordCounter counts, int k) {
+        checkK(k);
+        if (k == 0)
+            return new ArrayList<WordCount>();
+
+        // the root of the heap is the word that would be dropped first
+        PriorityQueue<WordCount> heap = new PriorityQueue<WordCount>(k + 1, BY_FREQUENCY.reversed());
+
+        counts.forEach((word, count) -> {
+            if (heap.size() < k)
+                heap.add(new WordCount(word, count));
+            else if (count > heap.peek().getCount()
+                    || (count == heap.peek().getCount() && word.compareTo(heap.peek().getWord()) < 0)) {
+                heap.poll();
+                heap.add(new WordCount(word, count));
+            }
+        });
+
+        List<WordCount> result = new ArrayList<WordCount>(heap);
+        result.sort(BY_FREQUENCY);
+        return result;
+    } // end top
+
+    public static List<WordCount> top(Iterator<String> words, int k) {
+        checkK(k);
+        WordCounter counts = new WordCounter();
+        while (words.hasNext())
+            counts.increment(words.next());
+        return top(counts, k);
+    }
+
+    public static List<WordCount> top(MappedTokenizer words, int k) {
+        checkK(k);
+        WordCounter counts = new WordCounter();
+        while (words.advance())
+            counts.increment(words.wordBytes(), words.wordLength());
+        return top(counts, k);
+    }
+
+    static void checkK(int k) {
+        if (k < 0)
+            throw new IllegalArgumentException("The number of words must not be negative: " + k);
+    }
+
+    // java TopWords <file> [k]
+    // prints the exact top k words next to the Space-Saving estimate with 10k counters
+    public static void main(String[] args) throws IOException {
+        File file = new File(args[0]);
+        int k = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+
+        MappedTokenizer tokenizer = new MappedTokenizer(file);
+        List<WordCount> exact = top(tokenizer, k);
+        tokenizer.close();
+
+        // with only k counters the estimates of a natural-language text are poor,
+        // a few times more counters give the right top k
+        SpaceSaving sketch = new SpaceSaving(10 * k);
+        tokenizer = new MappedTokenizer(file);
+        while (tokenizer.hasNext())
+            sketch.add(tokenizer.next());
+        tokenizer.close();
+        List<WordCount> approx = sketch.top(k);
+
+        System.out.println("Top " + k + " words: exact vs Space-Saving with " + 10 * k + " counters");
+        for (int i = 0; i < exact.size(); i++) {
+            String right = (i < approx.size()) ? approx.get(i).toString() : "";
+            System.out.printf("%3d. %-25s %s%n", i + 1, exact.get(i), right);
+        }
+        System.out.println("Space-Saving counts may be too high by at most " + sketch.getMinCount());
+    }
+}
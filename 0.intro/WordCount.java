@@ -0,0 +1,36 @@
+/*
+ * WordCount.java
+ * A word together with the number of times it occurs
+ */
+public class WordCount {
+    private String word;
+    private int count;
+
+    public WordCount(String word, int count) {
+        this.word = word;
+        this.count = count;
+    }
+
+    public String getWord() {
+        return word;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean equals(Object other) {
+        if (!(other instanceof WordCount))
+            return false;
+        WordCount wc = (WordCount) other;
+        return count == wc.count && java.util.Objects.equals(word, wc.word);
+    }
+
+    public int hashCode() {
+        return java.util.Objects.hashCode(word) * 31 + count;
+    }
+
+    public String toString() {
+        return "'" + word + "' (" + count + ")";
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * WordCounter.java
+ * A hash table from words to counts made for counting: the counts are kept in
+ * an int [] (no Integer objects), and increment(word) finds the word with one
+ * hash computation and one probe sequence, instead of the
+ * containsKey / put / get / put sequence of a HashMap<String, Integer>.
+ *
+ * Open addressing with linear probing: entry i is keys[i], hashes[i], counts[i];
+ * keys[i] == null means the slot is empty. Entries are never removed.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.ObjIntConsumer;
+
+public class WordCounter {
+    private static final int INITIAL_CAPACITY = 1024;   // always a power of 2
+
+    private String [] keys;
+    private int [] hashes;    // hash code of each key, so that resizing does not recompute them
+    private int [] counts;
+    private int size;
+    private int lastSlot = -1;   // slot changed by the most recent increment
+
+    public WordCounter() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    // Adds 1 to the count of key and returns the new count
+    public int increment(String key) {
+        return add(key, 1);
+    }
+
+    // Adds delta to the count of key and returns the new count
+    public int add(String key, int delta) {
+        int h = key.hashCode();
+        int mask = keys.length - 1;
+        int i = spread(h) & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == h && keys[i].equals(key))
+                return bump(i, delta);
+            i = (i + 1) & mask;
+        }
+        return insert(i, key, h, delta);
+    } // end add
+
+    // Returns the count of key; a new key is added with the given count first.
+    // This makes the table a map from words to any int, e.g. the ids of WordDictionary.
+    public int putIfAbsent(String key, int count) {
+        int h = key.hashCode();
+        int mask = keys.length - 1;
+        int i = spread(h) & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == h && keys[i].equals(key))
+                return counts[i];
+            i = (i + 1) & mask;
+        }
+        return insert(i, key, h, count);
+    } // end putIfAbsent
+
+    // Same as putIfAbsent(String, int) for the word stored in bytes[0 .. length-1] (UTF-8);
+    // no String is created unless the word is new or contains non-ASCII bytes
+    public int putIfAbsent(byte [] bytes, int length, int count) {
+        int h = asciiHash(bytes, length);
+        if (h == NOT_ASCII)
+            return putIfAbsent(new String(bytes, 0, length, StandardCharsets.UTF_8), count);
+
+        int mask = keys.length - 1;
+        int i = spread(h) & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == h && sameChars(keys[i], bytes, length))
+                return counts[i];
+            i = (i + 1) & mask;
+        }
+        return insert(i, new String(bytes, 0, length, StandardCharsets.ISO_8859_1), h, count);
+    } // end putIfAbsent
+
+    // Adds 1 to the count of the word stored in bytes[0 .. length-1] (UTF-8),
+    // for example the current word of a MappedTokenizer.
+    // No String is created unless the word is new or contains non-ASCII bytes.
+    public int increment(byte [] bytes, int length) {
+        int h = asciiHash(bytes, length);
+        if (h == NOT_ASCII)
+            return increment(new String(bytes, 0, length, StandardCharsets.UTF_8));
+
+        int mask = keys.length - 1;
+        int i = spread(h) & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == h && sameChars(keys[i], bytes, length))
+                return bump(i, 1);
+            i = (i + 1) & mask;
+        }
+        return insert(i, new String(bytes, 0, length, StandardCharsets.ISO_8859_1), h, 1);
+    } // end increment
+
+    // Returns the count of the word stored in bytes[0 .. length-1] (UTF-8)
+    public int get(byte [] bytes, int length) {
+        int h = asciiHash(bytes, length);
+        if (h == NOT_ASCII)
+            return get(new String(bytes, 0, length, StandardCharsets.UTF_8));
+
+        int mask = keys.length - 1;
+        int i = spread(h) & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == h && sameChars(keys[i], bytes, length))
+                return counts[i];
+            i = (i + 1) & mask;
+        }
+        return 0;
+    } // end get
+
+    // Returns the count of key, 0 if key was never added
+    public int get(String key) {
+        int h = key.hashCode();
+        int mask = keys.length - 1;
+        int i = spread(h) & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == h && keys[i].equals(key))
+                return counts[i];
+            i = (i + 1) & mask;
+        }
+        return 0;
+    } // end get
+
+    // The word whose count was changed by the most recent increment or add
+    public String lastKey() {
+        return (lastSlot < 0) ? null : keys[lastSlot];
+    }
+
+    // Number of distinct words
+    public int size() {
+        return size;
+    }
+
+    // Calls action.accept(word, count) for every word, in no particular order
+    public void forEach(ObjIntConsumer<String> action) {
+        for (int i = 0; i < keys.length; i++)
+            if (keys[i] != null)
+                action.accept(keys[i], counts[i]);
+    }
+
+    private int bump(int slot, int delta) {
+        lastSlot = slot;
+        counts[slot] += delta;
+        return counts[slot];
+    }
+
+    private int insert(int slot, String key, int h, int delta) {
+        keys[slot] = key;
+        hashes[slot] = h;
+        counts[slot] = delta;
+        lastSlot = slot;
+        size++;
+        if (2 * size > keys.length)   // keep the table at most half full
+            resize();                 // also moves lastSlot
+        return delta;
+    } // end insert
+
+    private void resize() {
+        String [] oldKeys = keys;
+        int [] oldHashes = hashes;
+        int [] oldCounts = counts;
+        String last = keys[lastSlot];
+
+        allocate(2 * oldKeys.length);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == null)
+                continue;
+            int i = spread(oldHashes[j]) & mask;
+            while (keys[i] != null)
+                i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            hashes[i] = oldHashes[j];
+            counts[i] = oldCounts[j];
+            if (oldKeys[j] == last)
+                lastSlot = i;
+        }
+    } // end resize
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        counts = new int[capacity];
+    }
+
+    // For ASCII bytes this is exactly String.hashCode() of the word.
+    // Returns NOT_ASCII if some byte is not ASCII; an ASCII word that happens to
+    // hash to this value just takes the (slower, but equally correct) String path.
+    private static final int NOT_ASCII = Integer.MIN_VALUE;
+
+    private static int asciiHash(byte [] bytes, int length) {
+        int h = 0;
+        boolean ascii = true;
+        for (int k = 0; k < length; k++) {
+            h = 31 * h + bytes[k];
+            ascii &= bytes[k] >= 0;
+        }
+        return ascii ? h : NOT_ASCII;
+    }
+
+    // mixes the high bits into the low bits, which are the ones used as the index
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    // key has the same characters as the ASCII bytes[0 .. length-1]
+    private static boolean sameChars(String key, byte [] bytes, int length) {
+        if (key.length() != length)
+            return false;
+        for (int k = 0; k < length; k++)
+            if (key.charAt(k) != bytes[k])
+                return false;
+        return true;
+    }
+}
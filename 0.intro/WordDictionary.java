@@ -0,0 +1,78 @@
+/*
+ * WordDictionary.java
+ * Dictionary encoding: every distinct word gets a number (its id), 0, 1, 2, ...
+ * in the order the words are first seen, and a text becomes an int [] of ids.
+ *
+ * A text with a small vocabulary then needs 4 bytes per word plus one String per
+ * distinct word, instead of one String object per word, and the counting code
+ * can use the ids directly as indexes into an int [] of counts.
+ */
+
+import java.io.*;
+import java.util.*;
+
+public class WordDictionary {
+    private final WordCounter ids = new WordCounter();   // word -> id, no Integer objects
+    private final List<String> words = new ArrayList<String>();   // words.get(id) is the word with this id
+
+    // Returns the id of word, giving it the next free id if it is new
+    public int idOf(String word) {
+        int id = ids.putIfAbsent(word, words.size());
+        if (id == words.size())
+            words.add(word);
+        return id;
+    }
+
+    // Same for the word stored in bytes[0 .. length-1] (UTF-8), e.g. the current
+    // word of a MappedTokenizer; no String is created unless the word is new
+    public int idOf(byte [] bytes, int length) {
+        int id = ids.putIfAbsent(bytes, length, words.size());
+        if (id == words.size())
+            words.add(ids.lastKey());
+        return id;
+    }
+
+    public String wordOf(int id) {
+        return words.get(id);
+    }
+
+    // Number of distinct words (ids are 0 .. size()-1)
+    public int size() {
+        return words.size();
+    }
+
+    // Turns a sequence of words into the sequence of their ids
+    public int [] encode(Iterator<String> text) {
+        int [] tokens = new int[1024];
+        int n = 0;
+        while (text.hasNext()) {
+            if (n == tokens.length)
+                tokens = Arrays.copyOf(tokens, 2 * tokens.length);
+            tokens[n++] = idOf(text.next());
+        }
+        return Arrays.copyOf(tokens, n);
+    }
+
+    // java WordDictionary <file>
+    public static void main(String[] args) throws IOException {
+        WordDictionary dict = new WordDictionary();
+        MappedTokenizer tokenizer = new MappedTokenizer(new File(args[0]));
+        int [] tokens = dict.encode(tokenizer);
+        tokenizer.close();
+
+        System.out.println("The input file contains " + tokens.length + " words, "
+                + dict.size() + " of them distinct.");
+
+        long startTime = System.nanoTime();
+        WordCount max = MaxFrequency.findMax(tokens, dict);
+        long endTime = System.nanoTime();
+        System.out.println("The most frequent word is '"+max.getWord()+"' which occurs "+max.getCount()+" times.");
+        System.out.println("Naive count over ids in: " + (endTime - startTime) / 1000000 + " ms");
+
+        startTime = System.nanoTime();
+        max = MaxFrequencySmart.findMax(tokens, dict);
+        endTime = System.nanoTime();
+        System.out.println("The most frequent word is '"+max.getWord()+"' which occurs "+max.getCount()+" times.");
+        System.out.println("Smart count over ids in: " + (endTime - startTime) / 1000000 + " ms");
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * WordNormalizer.java
+ * The rules that turn text into the words that are counted:
+ *   - foldCase(true): A-Z become a-z, so "The" and "the" are the same word;
+ *   - punctuation(...): SEPARATE (default) splits words at punctuation,
+ *     STRIP drops punctuation from whitespace-separated words ("don't," -> "dont"),
+ *     KEEP leaves whitespace-separated words as they are, like Scanner.next();
+ *   - stopwords(...): words in this list (after normalization) are skipped.
+ *
+ * MappedTokenizer applies the rules to the bytes of a file; words(...) applies
+ * the same rules to Strings (e.g. the tokens of a Scanner), so every way of
+ * reading the text counts the same words.
+ *
+ * By default a word is a maximal run of ASCII letters and digits; bytes >= 128 are
+ * also kept inside words, so multi-byte UTF-8 characters are never cut in half.
+ */
+
+import java.util.*;
+
+public class WordNormalizer {
+    public enum Punctuation { SEPARATE, STRIP, KEEP }
+
+    // WORD_BYTE[b & 0xFF] is true if byte b can be a part of a word
+    private static final boolean [] WORD_BYTE = new boolean[256];
+    // SPACE_BYTE[b & 0xFF] is true if byte b is ASCII whitespace
+    static final boolean [] SPACE_BYTE = new boolean[256];
+    static {
+        for (int b = 0; b < 256; b++) {
+            WORD_BYTE[b] = (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z')
+                    || (b >= '0' && b <= '9') || b >= 128;
+            SPACE_BYTE[b] = b == ' ' || (b >= '\t' && b <= '\r');
+        }
+    }
+
+    // the normalization tables, indexed by b & 0xFF
+    // (read directly by the inner loop of MappedTokenizer)
+    final boolean [] separator = new boolean[256];   // ends a word
+    final boolean [] kept = new boolean[256];        // copied into the word (if not a separator)
+    final byte [] fold = new byte[256];              // what is copied
+    private Punctuation mode;
+    private Collection<String> stopwords;
+    private WordCounter stopTable;      // the stopwords after normalization, null if none
+
+    public WordNormalizer() {
+        punctuation(Punctuation.SEPARATE);
+        foldCase(false);
+    }
+
+    // Builds the rules from command line options: fold, separate or strip, stopwords.
+    // Without separate or strip the punctuation is kept, so that no options
+    // give the words of Scanner.next().
+    public static WordNormalizer fromOptions(List<String> options, Collection<String> stopwords) {
+        WordNormalizer rules = new WordNormalizer();
+        rules.foldCase(options.contains("fold"));
+        rules.punctuation(Punctuation.KEEP);
+        if (options.contains("separate"))
+            rules.punctuation(Punctuation.SEPARATE);
+        if (options.contains("strip"))
+            rules.punctuation(Punctuation.STRIP);
+        if (options.contains("stopwords"))
+            rules.stopwords(stopwords);
+        return rules;
+    }
+
+    // Turns case folding on or off; returns this
+    public WordNormalizer foldCase(boolean on) {
+        for (int b = 0; b < 256; b++)
+            fold[b] = (byte) ((on && b >= 'A' && b <= 'Z') ? b + ('a' - 'A') : b);
+        buildStopTable();
+        return this;
+    }
+
+    // Sets how punctuation is treated; returns this
+    public WordNormalizer punctuation(Punctuation mode) {
+        this.mode = mode;
+        for (int b = 0; b < 256; b++) {
+            separator[b] = SPACE_BYTE[b] || (mode == Punctuation.SEPARATE && !WORD_BYTE[b]);
+            kept[b] = WORD_BYTE[b] || mode == Punctuation.KEEP;
+        }
+        buildStopTable();
+        return this;
+    }
+
+    // Words to skip, or null for none; returns this.
+    // Throws IllegalArgumentException if a stopword is split into several words
+    // by the punctuation setting ("don't" with SEPARATE), since it could never match.
+    public WordNormalizer stopwords(Collection<String> words) {
+        stopwords = words;
+        buildStopTable();
+        return this;
+    }
+
+    // true if word[0 .. length-1], already normalized, is a stopword
+    boolean isStopword(byte [] word, int length) {
+        return stopTable != null && stopTable.get(word, length) > 0;
+    }
+
+    // Adds the words of text, normalized and without stopwords, to words
+    public void split(String text, Collection<String> words) {
+        Iterator<String> it = words(Collections.singletonList(text).iterator());
+        while (it.hasNext())
+            words.add(it.next());
+    }
+
+    // The normalized words of the tokens, without stopwords, one at a time.
+    // A token that is already a normalized word is returned as it is; otherwise
+    // one String is made per word, from a reused char array.
+    public Iterator<String> words(Iterator<String> tokens) {
+        return new Words(tokens);
+    }
+
+    private class Words implements Iterator<String> {
+        private final Iterator<String> tokens;
+        private String token = "";      // the token being split
+        private int position;           // where the next word of token is looked for
+        private char [] word = new char[32];
+        private String next;            // found by hasNext(), not returned by next() yet
+
+        Words(Iterator<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        public boolean hasNext() {
+            while (next == null) {
+                if (position >= token.length()) {
+                    if (!tokens.hasNext())
+                        return false;
+                    token = tokens.next();
+                    position = 0;
+                }
+                next = nextWord();
+            }
+            return true;
+        }
+
+        public String next() {
+            if (!hasNext())
+                throw new NoSuchElementException("No more words");
+            String w = next;
+            next = null;
+            return w;
+        }
+
+        // The next word of token from position on, or null if there is none.
+        // Chars >= 128 are treated like the bytes >= 128 of their UTF-8 form:
+        // part of a word, never changed.
+        private String nextWord() {
+            int n = token.length();
+            while (position < n) {
+                // skip separators
+                while (position < n && isSeparator(token.charAt(position)))
+                    position++;
+                // copy the word
+                int start = position, length = 0;
+                boolean changed = false;
+                for (; position < n && !isSeparator(token.charAt(position)); position++) {
+                    char c = token.charAt(position);
+                    if (c < 128 && !kept[c]) {
+                        changed = true;
+                        continue;
+                    }
+                    char f = (c < 128) ? (char) fold[c] : c;
+                    changed |= f != c;
+                    if (length == word.length)
+                        word = Arrays.copyOf(word, 2 * length);
+                    word[length++] = f;
+                }
+                // skip tokens that were only punctuation (STRIP) and stopwords
+                if (length == 0)
+                    continue;
+                String w = (changed) ? new String(word, 0, length)
+                         : (length == n) ? token : token.substring(start, position);
+                if (stopTable == null || stopTable.get(w) == 0)
+                    return w;
+            }
+            return null;
+        }
+
+        private boolean isSeparator(char c) {
+            return c < 128 && separator[c];
+        }
+    }
+
+    // The stopwords normalized and split the same way as the words of the text
+    private void buildStopTable() {
+        stopTable = null;
+        if (stopwords == null || mode == null)
+            return;
+        WordCounter table = new WordCounter();
+        List<String> parts = new ArrayList<String>();
+        for (String w : stopwords) {
+            parts.clear();
+            split(w, parts);
+            if (parts.size() > 1)
+                throw new IllegalArgumentException("The stopword '" + w + "' is split into "
+                        + parts + " with punctuation " + mode);
+            if (parts.size() == 1)
+                table.increment(parts.get(0));
+        }
+        stopTable = table;
+    }
+}
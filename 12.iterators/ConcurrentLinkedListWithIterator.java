@@ -0,0 +1,177 @@
+// Append-only linked list that many threads can use at the same time
+// without a lock: producer threads add() while reader threads iterate.
+//
+// The chain starts with a dummy node, so the list is never "empty" for the
+// algorithm. add() links the new node after the last one with a
+// compare-and-set on its next field; only one of several threads racing
+// for the same last node wins, the others retry on the new last node.
+// tail may lag one node behind; any thread that sees this moves it on.
+// (This is the append half of the Michael-Scott queue.)
+//
+// Iterators are weakly consistent: they never throw
+// ConcurrentModificationException, return every entry that was in the list
+// when they were created, and may or may not return entries added later.
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentLinkedListWithIterator<T> implements Iterable<T> {
+
+	private static class ConcurrentNode<T> {
+		private final T data;
+		private volatile ConcurrentNode<T> next;
+
+		private ConcurrentNode(T data) {
+			this.data = data;
+		} // end constructor
+	} // end ConcurrentNode
+
+	private static final VarHandle NEXT;
+	private static final VarHandle TAIL;
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			NEXT = lookup.findVarHandle(ConcurrentNode.class, "next", ConcurrentNode.class);
+			TAIL = lookup.findVarHandle(ConcurrentLinkedListWithIterator.class, "tail", ConcurrentNode.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final ConcurrentNode<T> head = new ConcurrentNode<T>(null);  // dummy node
+	private volatile ConcurrentNode<T> tail = head;
+	private final AtomicInteger size = new AtomicInteger();
+
+	// adds to the end; safe to call from any number of threads
+	public void add(T newEntry) {
+		ConcurrentNode<T> newNode = new ConcurrentNode<T>(newEntry);
+		while (true) {
+			ConcurrentNode<T> last = tail;
+			ConcurrentNode<T> next = last.next;
+			if (next == null) {
+				if (NEXT.compareAndSet(last, null, newNode)) {   // linked in
+					TAIL.compareAndSet(this, last, newNode);      // may fail if another thread helped
+					size.incrementAndGet();
+					return;
+				}
+			}
+			else
+				TAIL.compareAndSet(this, last, next);             // tail was behind: help move it
+		}
+	} // end add
+
+	// Number of entries. While other threads are adding, this is a
+	// snapshot that may already be out of date.
+	public int getSize() {
+		return size.get();
+	} // end getSize
+
+	public boolean isEmpty() {
+		return head.next == null;
+	} // end isEmpty
+
+	// Walks the chain, so O(givenPosition)
+	public T get(int givenPosition) {
+		if (givenPosition >= 0) {
+			ConcurrentNode<T> node = head.next;
+			for (int i = 0; i < givenPosition && node != null; i++)
+				node = node.next;
+			if (node != null)
+				return node.data;
+		}
+		throw new IndexOutOfBoundsException("Illegal position given to getEntry operation.");
+	} // end get
+
+	public Iterator<T> iterator() {
+		return new WeaklyConsistentIterator();
+	} // end iterator
+
+//==================================
+
+	private class WeaklyConsistentIterator implements Iterator<T> {
+		private ConcurrentNode<T> lastReturned = head;
+		private ConcurrentNode<T> nextNode = head.next;
+
+		public boolean hasNext() {
+			if (nextNode == null)      // at the end: pick up entries added since
+				nextNode = lastReturned.next;
+			return nextNode != null;
+		} // end hasNext
+
+		public T next() {
+			if (!hasNext())
+				throw new NoSuchElementException("Illegal call to next(); " +
+						"iterator is after end of list.");
+			lastReturned = nextNode;
+			nextNode = nextNode.next;
+			return lastReturned.data;
+		} // end next
+	} // end WeaklyConsistentIterator
+
+	// Producer threads append while a reader thread keeps iterating.
+	// The reader checks that every producer's entries appear in order and
+	// that no pass ever sees fewer entries than the pass before.
+	public static void main(String [] args) throws InterruptedException {
+		int producers = 4;
+		int perProducer = 250000;
+		ConcurrentLinkedListWithIterator<int []> list = new ConcurrentLinkedListWithIterator<int []>();
+
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int p = 0; p < producers; p++) {
+			final int id = p;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < perProducer; i++)
+					list.add(new int [] {id, i});
+			}));
+		}
+		long start = System.currentTimeMillis();
+		for (Thread t : threads)
+			t.start();
+
+		int passes = 0;
+		int previousSeen = 0;
+		boolean ok = true;
+		boolean producing = true;
+		while (producing) {
+			producing = false;
+			for (Thread t : threads)
+				producing |= t.isAlive();
+
+			int [] expected = new int [producers];   // next value expected from each producer
+			int seen = 0;
+			for (int [] entry : list) {
+				ok &= (entry[1] == expected[entry[0]]);
+				expected[entry[0]]++;
+				seen++;
+			}
+			ok &= (seen >= previousSeen);
+			previousSeen = seen;
+			passes++;
+		}
+		for (Thread t : threads)
+			t.join();
+		long end = System.currentTimeMillis();
+
+		System.out.println(producers + " producers added " + list.getSize() + " entries in " + (end - start)
+				+ " ms while the reader made " + passes + " passes");
+		System.out.println("Last pass saw " + previousSeen + " entries; entries in order: " + ok);
+
+		// The plain list fails fast instead of returning wrong results
+		LinkedListWithIterator<Integer> plain = new LinkedListWithIterator<Integer>();
+		for (int i = 0; i < 10; i++)
+			plain.add(Integer.valueOf(i));
+		try {
+			for (Integer v : plain)
+				if (v == 5)
+					plain.add(Integer.valueOf(100));
+		} catch (ConcurrentModificationException e) {
+			System.out.println("LinkedListWithIterator: " + e.getMessage());
+		}
+	}
+} // end ConcurrentLinkedListWithIterator
@@ -0,0 +1,33 @@
+public class DoubleNode<T> {
+      private T    data; // Entry in list
+      private DoubleNode<T> next;     // Reference to the next node
+      private DoubleNode<T> previous; // Reference to the previous node
+
+      public DoubleNode(T data) {
+         this.data = data;
+      } // end constructor
+
+      public T getData() {
+         return this.data;
+      } // end getData
+
+      public void setData(T newData) {
+         this.data = newData;
+      } // end setData
+
+      public DoubleNode<T> getNext() {
+         return this.next;
+      } // end getNext
+
+      public void setNext(DoubleNode<T> nextNode) {
+         this.next = nextNode;
+      } // end setNext
+
+      public DoubleNode<T> getPrevious() {
+         return this.previous;
+      } // end getPrevious
+
+      public void setPrevious(DoubleNode<T> previousNode) {
+         this.previous = previousNode;
+      } // end setPrevious
+} // end DoubleNode
@@ -0,0 +1,268 @@
+// Doubly linked version of LinkedListWithIterator.
+// Every node also knows the node before it, so the iterator can go back
+// (previous) and can remove, replace or insert entries where it stands,
+// each in O(1). Filtering a list in one traversal is then O(n) in total,
+// instead of O(n) for every remove(int) call.
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+public class DoublyLinkedListWithIterator<T> implements Iterable<T> {
+	private DoubleNode<T> head;
+	private DoubleNode<T> tail;
+	private int size;
+	private int modCount;   // number of structural changes, to detect changes behind an iterator's back
+
+	public DoublyLinkedListWithIterator() {
+		clear();
+	} // end default constructor
+
+	public void clear() {
+		head = null;
+		tail = null;
+		size = 0;
+		modCount++;
+	} // end clear
+
+	public boolean isEmpty() {
+		return size == 0;
+	} // end isEmpty
+
+	public int getSize() {
+		return size;
+	} // end getSize
+
+	// adds to the end
+	public void add(T newEntry) {
+		linkBefore(newEntry, null);
+	} // end add
+
+	// adds at a specified position
+	public void add(int newPosition, T newEntry) {
+		if ((newPosition >= 0) && (newPosition <= size))
+			linkBefore(newEntry, (newPosition == size) ? null : getNodeAt(newPosition));
+		else
+			throw new IndexOutOfBoundsException("Illegal position given to add operation.");
+	} // end add
+
+	public T remove(int givenPosition) {
+		if ((givenPosition >= 0) && (givenPosition < size)) {
+			DoubleNode<T> nodeToRemove = getNodeAt(givenPosition);
+			unlink(nodeToRemove);
+			return nodeToRemove.getData();
+		}
+		else
+			throw new IndexOutOfBoundsException("Illegal position given to remove operation.");
+	} // end remove
+
+	public T get(int givenPosition) {
+		if ((givenPosition >= 0) && (givenPosition < size))
+			return getNodeAt(givenPosition).getData();
+		else
+			throw new IndexOutOfBoundsException("Illegal position given to getEntry operation.");
+	} // end get
+
+	public Iterator<T> iterator() {
+		return listIterator(0);
+	} // end iterator
+
+	public ListIterator<T> listIterator() {
+		return listIterator(0);
+	} // end listIterator
+
+	// Iterator positioned before the entry at index (0 <= index <= size)
+	public ListIterator<T> listIterator(int index) {
+		if ((index >= 0) && (index <= size))
+			return new IteratorForDoublyLinkedList(index);
+		else
+			throw new IndexOutOfBoundsException("Illegal position given to listIterator.");
+	} // end listIterator
+
+	// Inserts a new node with newEntry before nodeAfter (at the end if nodeAfter is null)
+	private void linkBefore(T newEntry, DoubleNode<T> nodeAfter) {
+		DoubleNode<T> newNode = new DoubleNode<T>(newEntry);
+		DoubleNode<T> nodeBefore = (nodeAfter == null) ? tail : nodeAfter.getPrevious();
+
+		newNode.setPrevious(nodeBefore);
+		newNode.setNext(nodeAfter);
+		if (nodeBefore == null)
+			head = newNode;
+		else
+			nodeBefore.setNext(newNode);
+		if (nodeAfter == null)
+			tail = newNode;
+		else
+			nodeAfter.setPrevious(newNode);
+
+		size++;
+		modCount++;
+	} // end linkBefore
+
+	// Takes node out of the chain
+	private void unlink(DoubleNode<T> node) {
+		DoubleNode<T> nodeBefore = node.getPrevious();
+		DoubleNode<T> nodeAfter = node.getNext();
+
+		if (nodeBefore == null)
+			head = nodeAfter;
+		else
+			nodeBefore.setNext(nodeAfter);
+		if (nodeAfter == null)
+			tail = nodeBefore;
+		else
+			nodeAfter.setPrevious(nodeBefore);
+
+		size--;
+		modCount++;
+	} // end unlink
+
+	// Returns a reference to the node at a given position,
+	// walking from whichever end of the chain is closer.
+	// Precondition: 0 <= givenPosition < size.
+	private DoubleNode<T> getNodeAt(int givenPosition) {
+		assert (0 <= givenPosition) && (givenPosition < size);
+		DoubleNode<T> currentNode;
+		if (givenPosition < size / 2) {
+			currentNode = head;
+			for (int counter = 0; counter < givenPosition; counter++)
+				currentNode = currentNode.getNext();
+		}
+		else {
+			currentNode = tail;
+			for (int counter = size - 1; counter > givenPosition; counter--)
+				currentNode = currentNode.getPrevious();
+		}
+		return currentNode;
+	} // end getNodeAt
+
+//==================================
+
+	private class IteratorForDoublyLinkedList implements ListIterator<T> {
+		private DoubleNode<T> nextNode;      // node returned by next(); null at the end of the list
+		private int nextIndex;               // index of nextNode
+		private DoubleNode<T> lastReturned;  // node returned by the last next() or previous()
+		private int expectedModCount = modCount;
+
+		private IteratorForDoublyLinkedList(int index) {
+			nextNode = (index == size) ? null : getNodeAt(index);
+			nextIndex = index;
+		} // end constructor
+
+		public boolean hasNext() {
+			return nextIndex < size;
+		} // end hasNext
+
+		public T next() {
+			checkForChanges();
+			if (!hasNext())
+				throw new NoSuchElementException("Illegal call to next(); " +
+						"iterator is after end of list.");
+			lastReturned = nextNode;
+			nextNode = nextNode.getNext();
+			nextIndex++;
+			return lastReturned.getData();
+		} // end next
+
+		public boolean hasPrevious() {
+			return nextIndex > 0;
+		} // end hasPrevious
+
+		public T previous() {
+			checkForChanges();
+			if (!hasPrevious())
+				throw new NoSuchElementException("Illegal call to previous(); " +
+						"iterator is before beginning of list.");
+			nextNode = (nextNode == null) ? tail : nextNode.getPrevious();
+			lastReturned = nextNode;
+			nextIndex--;
+			return lastReturned.getData();
+		} // end previous
+
+		public int nextIndex() {
+			return nextIndex;
+		} // end nextIndex
+
+		public int previousIndex() {
+			return nextIndex - 1;
+		} // end previousIndex
+
+		// Removes the entry returned by the last next() or previous()
+		public void remove() {
+			checkForChanges();
+			if (lastReturned == null)
+				throw new IllegalStateException("remove() must follow next() or previous()");
+			if (nextNode == lastReturned)        // last move was previous()
+				nextNode = lastReturned.getNext();
+			else                                 // last move was next()
+				nextIndex--;
+			unlink(lastReturned);
+			lastReturned = null;
+			expectedModCount = modCount;
+		} // end remove
+
+		// Replaces the entry returned by the last next() or previous()
+		public void set(T newEntry) {
+			checkForChanges();
+			if (lastReturned == null)
+				throw new IllegalStateException("set() must follow next() or previous()");
+			lastReturned.setData(newEntry);
+		} // end set
+
+		// Inserts newEntry just before the entry that next() would return
+		public void add(T newEntry) {
+			checkForChanges();
+			linkBefore(newEntry, nextNode);
+			nextIndex++;
+			lastReturned = null;
+			expectedModCount = modCount;
+		} // end add
+
+		private void checkForChanges() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException("The list was changed outside of this iterator");
+		} // end checkForChanges
+	} // end IteratorForDoublyLinkedList
+
+	// Removes all the even numbers and doubles the odd ones: first with
+	// remove(int)/get(int) on a LinkedListWithIterator, then in one pass
+	// with the list iterator of a DoublyLinkedListWithIterator
+	public static void main(String [] args) {
+		int n = 50000;
+		LinkedListWithIterator<Integer> L1 = new LinkedListWithIterator<Integer>();
+		DoublyLinkedListWithIterator<Integer> L2 = new DoublyLinkedListWithIterator<Integer>();
+		for (int i = 0; i < n; i++) {
+			L1.add(Integer.valueOf(i));
+			L2.add(Integer.valueOf(i));
+		}
+
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < L1.getSize(); ) {
+			int value = L1.get(i);
+			if (value % 2 == 0)
+				L1.remove(i);
+			else {
+				L1.remove(i);
+				L1.add(i, 2 * value);
+				i++;
+			}
+		}
+		long end = System.currentTimeMillis();
+		System.out.println("Index-based filtering of " + n + " entries: " + (end - start) + " ms.");
+
+		start = System.currentTimeMillis();
+		ListIterator<Integer> it = L2.listIterator();
+		while (it.hasNext()) {
+			int value = it.next();
+			if (value % 2 == 0)
+				it.remove();
+			else
+				it.set(2 * value);
+		}
+		end = System.currentTimeMillis();
+		System.out.println("Iterator-based filtering of " + n + " entries: " + (end - start) + " ms.");
+		System.out.println("Both lists now have " + L1.getSize() + " and " + L2.getSize() + " entries, last "
+				+ L1.get(L1.getSize() - 1) + " and " + L2.get(L2.getSize() - 1));
+	}
+} // end DoublyLinkedListWithIterator
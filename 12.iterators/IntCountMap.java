@@ -0,0 +1,80 @@
+// Counts of int values, without boxing: a hash table with open addressing
+// (linear probing) over two parallel int arrays. A slot with count 0 is empty,
+// so the table needs no separate "used" flags. Values can only be counted up,
+// never removed, which is all a histogram needs.
+
+public class IntCountMap {
+	public interface Visitor {
+		void visit(int key, int count);
+	}
+
+	private int [] keys;
+	private int [] counts;
+	private int size;       // number of distinct keys
+	private int mask;       // capacity - 1 (the capacity is a power of 2)
+
+	public IntCountMap() {
+		this(16);
+	}
+
+	public IntCountMap(int expectedKeys) {
+		int capacity = Integer.highestOneBit(Math.max(expectedKeys, 8) * 2 - 1) << 1;  // at most half full
+		keys = new int [capacity];
+		counts = new int [capacity];
+		mask = capacity - 1;
+	}
+
+	// Adds 1 to the count of key and returns the new count
+	public int increment(int key) {
+		return add(key, 1);
+	}
+
+	// Adds delta (> 0) to the count of key and returns the new count
+	public int add(int key, int delta) {
+		int slot = slot(key);
+		if (counts[slot] == 0) {
+			keys[slot] = key;
+			if (++size > (mask + 1) / 2) {
+				counts[slot] = delta;
+				grow();
+				return delta;
+			}
+		}
+		return counts[slot] += delta;
+	}
+
+	// Count of key, 0 if it was never counted
+	public int get(int key) {
+		return counts[slot(key)];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	// Calls action with every key and its count, in no particular order
+	public void forEach(Visitor action) {
+		for (int i = 0; i < keys.length; i++)
+			if (counts[i] != 0)
+				action.visit(keys[i], counts[i]);
+	}
+
+	// Slot holding key, or the empty slot where it would go
+	private int slot(int key) {
+		return IntHash.find(keys, counts, key);
+	}
+
+	private void grow() {
+		int [] oldKeys = keys;
+		int [] oldCounts = counts;
+		keys = new int [oldKeys.length * 2];
+		counts = new int [oldCounts.length * 2];
+		mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++)
+			if (oldCounts[i] != 0) {
+				int slot = slot(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				counts[slot] = oldCounts[i];
+			}
+	}
+}
@@ -0,0 +1,44 @@
+// The parts shared by the int hash tables of this directory (IntCountMap,
+// IntSpaceSaving): open addressing with linear probing over two parallel
+// arrays, keys[] and values[], whose length is a power of 2. A slot whose
+// value is 0 is empty, so no separate "used" flags are needed.
+
+public final class IntHash {
+	private IntHash() {
+	}
+
+	// Spreads the bits of key, so that keys like 0, 1024, 2048 ... do not share slots:
+	// multiplies by 2^32 / golden ratio and folds the high bits into the low ones,
+	// which are the ones "& mask" keeps
+	public static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	// Slot holding key, or the empty slot where it would go
+	public static int find(int [] keys, int [] values, int key) {
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (values[slot] != 0 && keys[slot] != key)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	// Empties slot hole and closes the hole: the entries after it in the same
+	// run move back, so that no search stops at the empty slot too early.
+	// No "deleted" markers are needed.
+	public static void remove(int [] keys, int [] values, int hole) {
+		int mask = keys.length - 1;
+		values[hole] = 0;
+		for (int slot = (hole + 1) & mask; values[slot] != 0; slot = (slot + 1) & mask) {
+			int home = hash(keys[slot]) & mask;
+			// move the entry into the hole if its home is not between hole and slot
+			if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+				keys[hole] = keys[slot];
+				values[hole] = values[slot];
+				values[slot] = 0;
+				hole = slot;
+			}
+		}
+	}
+}
@@ -0,0 +1,258 @@
+// Approximate mode (and most frequent values) of a stream of ints that is too
+// long to keep, using k counters (the Space-Saving algorithm of Metwally,
+// Agrawal and El Abbadi - see also SpaceSaving in 0.intro, which counts words).
+//
+// Only k values are tracked at a time. A tracked value gets +1. A new value
+// takes over the counter with the smallest count m and starts at m + 1,
+// remembering that up to m of this count may belong to replaced values.
+// Every count is too high by at most getMinCount(), which is at most n/k, so
+// any value that occurs more than n/k times in n values is certainly tracked.
+//
+// Nothing is boxed: the counters are parallel arrays, kept in a min-heap by
+// count, and values are found with a small open-addressing table.
+//
+// Summaries of different parts of a stream (e.g. counted by different threads)
+// can be merged; the merged summary has the same guarantee for the whole stream.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class IntSpaceSaving {
+	private final int capacity;       // k
+	private final int [] value;       // value[c]: value counted by counter c
+	private final long [] count;      // count[c]: its (over)estimated count
+	private final long [] error;      // count[c] is too high by at most error[c]
+	private final int [] heap;        // counters, heap[0] has the smallest count
+	private final int [] position;    // position[c]: index of counter c in heap
+	private int size;                 // counters in use
+	private long total;               // values added
+
+	// value -> counter + 1 (0 = empty slot), linear probing (see IntHash)
+	private final int [] slotValue;
+	private final int [] slotCounter;
+
+	public IntSpaceSaving(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		this.capacity = capacity;
+		value = new int [capacity];
+		count = new long [capacity];
+		error = new long [capacity];
+		heap = new int [capacity];
+		position = new int [capacity];
+		int slots = Integer.highestOneBit(capacity * 2 - 1) << 1;   // at most half full
+		slotValue = new int [slots];
+		slotCounter = new int [slots];
+	}
+
+	public void add(int v) {
+		add(v, 1, 0);
+	}
+
+	// Adds n occurrences of v, whose count may already be too high by err
+	private void add(int v, long n, long err) {
+		total += n;
+		int slot = find(v);
+		int c = slotCounter[slot] - 1;
+		if (c >= 0) {
+			count[c] += n;
+			error[c] += err;
+			siftDown(position[c]);
+		}
+		else if (size < capacity) {
+			c = size;
+			value[c] = v;
+			count[c] = n;
+			error[c] = err;
+			slotValue[slot] = v;
+			slotCounter[slot] = c + 1;
+			place(c, size++);
+			siftUp(size - 1);
+		}
+		else {
+			// replace the value with the smallest count
+			c = heap[0];
+			remove(value[c]);
+			slot = find(v);                 // the table may have shifted
+			value[c] = v;
+			error[c] = count[c] + err;
+			count[c] += n;
+			slotValue[slot] = v;
+			slotCounter[slot] = c + 1;
+			siftDown(0);
+		}
+	}
+
+	// Estimated count of v: never lower than the real count
+	public long estimate(int v) {
+		int c = slotCounter[find(v)] - 1;
+		return (c >= 0) ? count[c] : getMinCount();
+	}
+
+	// Upper bound on the overestimate of any count
+	public long getMinCount() {
+		return (size < capacity) ? 0 : count[heap[0]];
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	// The tracked value with the highest estimated count
+	public ModeFinder.Mode mode() {
+		if (size == 0)
+			return new ModeFinder.Mode(0, 0, -1);
+		int best = heap[0];
+		for (int i = 0; i < size; i++)
+			if (count[heap[i]] > count[best])
+				best = heap[i];
+		return new ModeFinder.Mode(value[best], (int) Math.min(count[best], Integer.MAX_VALUE), -1);
+	}
+
+	// Tracked values, the most frequent first, as {value, count, error} rows
+	public long [][] top() {
+		long [][] rows = new long [size][];
+		for (int i = 0; i < size; i++)
+			rows[i] = new long [] {value[heap[i]], count[heap[i]], error[heap[i]]};
+		Arrays.sort(rows, (a, b) -> Long.compare(b[1], a[1]));
+		return rows;
+	}
+
+	// Adds the summary of another part of the stream (with the same capacity)
+	// to this one. Every value gets the sum of its two estimates - a value that
+	// one summary does not track gets that summary's getMinCount(), which is at
+	// least its real count there - and the k largest sums are kept
+	// (Agarwal et al., "Mergeable summaries").
+	public void merge(IntSpaceSaving other) {
+		if (other.capacity != capacity)
+			throw new IllegalArgumentException("Cannot merge a summary with " + other.capacity
+					+ " counters into one with " + capacity);
+		long thisMin = getMinCount(), otherMin = other.getMinCount();
+		long [][] rows = new long [size + other.size][];
+		int n = 0;
+		for (int i = 0; i < size; i++) {
+			int c = heap[i];
+			int o = other.slotCounter[other.find(value[c])] - 1;
+			rows[n++] = (o >= 0)
+					? new long [] {value[c], count[c] + other.count[o], error[c] + other.error[o]}
+					: new long [] {value[c], count[c] + otherMin, error[c] + otherMin};
+		}
+		for (int i = 0; i < other.size; i++) {
+			int o = other.heap[i];
+			if (slotCounter[find(other.value[o])] == 0)
+				rows[n++] = new long [] {other.value[o], other.count[o] + thisMin, other.error[o] + thisMin};
+		}
+		Arrays.sort(rows, 0, n, (a, b) -> Long.compare(b[1], a[1]));
+
+		long newTotal = total + other.total;
+		clear();
+		for (int i = 0; i < Math.min(n, capacity); i++)
+			add((int) rows[i][0], rows[i][1], rows[i][2]);
+		total = newTotal;
+	}
+
+	private void clear() {
+		Arrays.fill(slotCounter, 0);
+		size = 0;
+		total = 0;
+	}
+
+	// Slot holding v, or the empty slot where it would go
+	private int find(int v) {
+		return IntHash.find(slotValue, slotCounter, v);
+	}
+
+	// Removes v from the table
+	private void remove(int v) {
+		IntHash.remove(slotValue, slotCounter, find(v));
+	}
+
+	private void siftUp(int i) {
+		int c = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (count[heap[parent]] <= count[c])
+				break;
+			place(heap[parent], i);
+			i = parent;
+		}
+		place(c, i);
+	}
+
+	private void siftDown(int i) {
+		int c = heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size)
+				break;
+			if (child + 1 < size && count[heap[child + 1]] < count[heap[child]])
+				child++;
+			if (count[c] <= count[heap[child]])
+				break;
+			place(heap[child], i);
+			i = child;
+		}
+		place(c, i);
+	}
+
+	private void place(int c, int i) {
+		heap[i] = c;
+		position[c] = i;
+	}
+
+	// Compares the approximate mode with the exact one on random data with a
+	// few frequent values: first with getModeIterator2 on a small list, then
+	// with ModeFinder on a long stream counted in 4 parts and merged
+	public static void main(String [] args) {
+		Random R = new Random(1);
+		int k = 100;
+
+		List<Integer> L = new ArrayList<Integer>();
+		IntSpaceSaving summary = new IntSpaceSaving(k);
+		for (int i = 0; i < 20000; i++) {
+			int v = skewed(R);
+			L.add(v);
+			summary.add(v);
+		}
+		System.out.println("20000 values, exact (getModeIterator2):");
+		ModeIterators.getModeIterator2(L);
+		System.out.println("Space-Saving with " + k + " counters:");
+		System.out.println(summary.mode() + "(overestimated by at most " + summary.getMinCount() + ")");
+
+		int n = 10000000;
+		int parts = 4;
+		int [] A = new int [n];
+		for (int i = 0; i < n; i++)
+			A[i] = skewed(R);
+		IntSpaceSaving merged = new IntSpaceSaving(k);
+		for (int p = 0; p < parts; p++) {
+			IntSpaceSaving part = new IntSpaceSaving(k);
+			for (int i = p * (n / parts); i < (p + 1) * (n / parts); i++)
+				part.add(A[i]);
+			merged.merge(part);
+		}
+		ModeFinder.Mode exact = ModeFinder.findMode(A);
+		ModeFinder.Mode approx = merged.mode();
+		System.out.println("\n" + n + " values in " + parts + " merged parts:");
+		System.out.println("Exact:       " + exact);
+		System.out.println("Approximate: " + approx + "(overestimated by at most " + merged.getMinCount()
+				+ ", n/k = " + n / k + ")");
+		int [] exactCounts = new int [1 << 20];
+		for (int v : A)
+			exactCounts[v]++;
+		long worst = 0;
+		for (long [] row : merged.top())
+			worst = Math.max(worst, row[1] - exactCounts[(int) row[0]]);
+		System.out.println("Largest overestimate among the tracked values: " + worst);
+	}
+
+	// Half of the values follow a power law (v with probability about
+	// 0.1 / (v+1)^1.2, so 0 is the most frequent), the rest are spread over [0, 2^20)
+	private static int skewed(Random R) {
+		if (R.nextInt(2) == 0)
+			return R.nextInt(1 << 20);
+		return (int) Math.min((1 << 20) - 1, Math.pow(R.nextDouble(), -1 / 0.2) - 1);
+	}
+}
@@ -0,0 +1,197 @@
+// Approximate quantiles (median, 99th percentile, ...) of a stream of ints
+// that is too long to keep, in O(k) memory (the KLL sketch of Karnin, Lang
+// and Liberty).
+//
+// The values are kept in levels ("compactors"); a value at level h stands
+// for 2^h values of the stream. New values go to level 0. When a level is
+// full it is sorted and every other value (starting at a random one of the
+// first two) moves up one level, where it counts twice; the others are
+// dropped. Higher levels get more room than lower ones (capacity k at the
+// top, 2/3 of that one level down, and so on), so most of the memory goes to
+// the values that stand for the most of the stream.
+//
+// The rank of a value (how many stream values are <= it) is then off by about
+// n / k, with high probability. Two sketches are merged by putting their
+// levels together and compacting again, so parts of a stream can be
+// summarized by different threads.
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class KllSketch {
+	private static final double SHRINK = 2.0 / 3.0;   // capacity ratio between neighbouring levels
+
+	private final int k;
+	private final Random random;
+	private int [][] levels = new int [0][];          // levels[h][0..levelSize[h]-1]
+	private int [] levelSize = new int [0];
+	private int retained;          // values kept, in all levels
+	private int maxRetained;       // compact when retained reaches this
+	private long n;                // values added
+
+	public KllSketch(int k) {
+		this(k, new Random());
+	}
+
+	public KllSketch(int k, Random random) {
+		if (k < 2)
+			throw new IllegalArgumentException("k must be at least 2: " + k);
+		this.k = k;
+		this.random = random;
+		grow();
+	}
+
+	public void add(int value) {
+		append(0, value);
+		n++;
+		if (retained >= maxRetained)
+			compress();
+	}
+
+	// Adds the sketch of another part of the stream to this one; both must
+	// have the same k, or the error bound of the result would not hold
+	public void merge(KllSketch other) {
+		if (other.k != k)
+			throw new IllegalArgumentException("Cannot merge a sketch with k = " + other.k
+					+ " into one with k = " + k);
+		while (levels.length < other.levels.length)
+			grow();
+		for (int h = 0; h < other.levels.length; h++)
+			for (int i = 0; i < other.levelSize[h]; i++)
+				append(h, other.levels[h][i]);
+		n += other.n;
+		while (retained >= maxRetained)
+			compress();
+	}
+
+	// Estimated number of values <= value
+	public long rank(int value) {
+		long rank = 0;
+		for (int h = 0; h < levels.length; h++)
+			for (int i = 0; i < levelSize[h]; i++)
+				if (levels[h][i] <= value)
+					rank += 1L << h;
+		return rank;
+	}
+
+	// Estimated q-quantile (0 <= q <= 1): the smallest kept value whose
+	// estimated rank is at least q * n
+	public int quantile(double q) {
+		if (n == 0)
+			throw new IllegalStateException("The sketch is empty");
+		long [] weighted = new long [retained];     // value in the high half, weight in the low half
+		int m = 0;
+		for (int h = 0; h < levels.length; h++)
+			for (int i = 0; i < levelSize[h]; i++)
+				weighted[m++] = ((long) levels[h][i] << 32) | (1L << h);
+		Arrays.sort(weighted);                         // sorts by value, since values are signed in the high bits
+
+		long target = (long) Math.ceil(q * n);
+		long seen = 0;
+		for (long w : weighted) {
+			seen += w & 0xFFFFFFFFL;
+			if (seen >= target)
+				return (int) (w >> 32);
+		}
+		return (int) (weighted[m - 1] >> 32);
+	}
+
+	public long getN() {
+		return n;
+	}
+
+	// Number of values the sketch keeps
+	public int getRetained() {
+		return retained;
+	}
+
+	private int capacity(int h) {
+		int height = levels.length - h - 1;           // 0 for the top level
+		return (int) Math.ceil(Math.pow(SHRINK, height) * k) + 1;
+	}
+
+	private void grow() {
+		levels = Arrays.copyOf(levels, levels.length + 1);
+		levelSize = Arrays.copyOf(levelSize, levelSize.length + 1);
+		levels[levels.length - 1] = new int [8];
+		maxRetained = 0;
+		for (int h = 0; h < levels.length; h++)
+			maxRetained += capacity(h);
+	}
+
+	private void append(int h, int value) {
+		if (levelSize[h] == levels[h].length)
+			levels[h] = Arrays.copyOf(levels[h], 2 * levels[h].length);
+		levels[h][levelSize[h]++] = value;
+		retained++;
+	}
+
+	// Compacts the lowest level that is full
+	private void compress() {
+		for (int h = 0; h < levels.length; h++)
+			if (levelSize[h] >= capacity(h)) {
+				if (h + 1 == levels.length)
+					grow();
+				int [] level = levels[h];
+				int size = levelSize[h];
+				Arrays.sort(level, 0, size);
+				int keep = size % 2;                   // with an odd size the largest value stays here
+				int offset = random.nextBoolean() ? 1 : 0;
+				for (int i = offset; i < size - keep; i += 2)
+					append(h + 1, level[i]);
+				if (keep == 1)
+					level[0] = level[size - 1];
+				retained -= size - keep;
+				levelSize[h] = keep;
+				return;
+			}
+	}
+
+	// Compares estimated quantiles with the exact ones on random data,
+	// summarized in 4 parts that are then merged
+	public static void main(String [] args) {
+		int n = (args.length > 0) ? Integer.parseInt(args[0]) : 10000000;
+		int k = 200;
+		int parts = 4;
+		Random R = new Random(1);
+		int [] A = new int [n];
+		for (int i = 0; i < n; i++)
+			A[i] = (int) (R.nextGaussian() * 1000);
+
+		KllSketch merged = new KllSketch(k, new Random(2));
+		for (int p = 0; p < parts; p++) {
+			KllSketch part = new KllSketch(k, new Random(3 + p));
+			for (int i = p * (n / parts); i < (p + 1) * (n / parts); i++)
+				part.add(A[i]);
+			merged.merge(part);
+		}
+
+		int [] sorted = A.clone();
+		Arrays.sort(sorted);
+		System.out.println(n + " values, k = " + k + ": the merged sketch keeps " + merged.getRetained() + " values");
+		double worst = 0;
+		for (double q : new double [] {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99}) {
+			int estimate = merged.quantile(q);
+			int exact = sorted[(int) Math.ceil(q * n) - 1];
+			// real rank of the estimate, as a fraction of n
+			int lo = lowerBound(sorted, estimate), hi = lowerBound(sorted, estimate + 1);
+			double rankError = (q * n < lo) ? (lo - q * n) / n : (q * n > hi) ? (q * n - hi) / n : 0;
+			worst = Math.max(worst, rankError);
+			System.out.printf("q = %.2f: estimate %6d, exact %6d, rank error %.4f%n", q, estimate, exact, rankError);
+		}
+		System.out.printf("Largest rank error %.4f (about 1/k = %.4f expected)%n", worst, 1.0 / k);
+	}
+
+	// First index of sorted with sorted[index] >= value
+	private static int lowerBound(int [] sorted, int value) {
+		int lo = 0, hi = sorted.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (sorted[mid] < value)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+}
@@ -1,8 +1,16 @@
 // full demo of iterator
 // partly adopted from the textbook code
 
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.StreamSupport;
+
+import metrics.Counter;
+import metrics.Metrics;
 /**
    A class that implements the ADT list by using a chain of nodes.
    The list has an iterator. The class is similar to LList.
@@ -13,36 +21,58 @@ import java.util.NoSuchElementException;
 */
 public class LinkedListWithIterator<T> implements Iterable<T> {
    private Node<T> head;
+   private Node<T> tail;   // last node, so that adding to the end does not traverse the chain
    private int  size;
+   private Node<T> finger;  // last node found by getNodeAt, so that nearby positions
+   private int fingerIndex; // are reached from there instead of from head; -1 if none
+   private final boolean pooled; // whether removed nodes are kept for reuse
+   private Node<T> freeNodes;    // removed nodes, chained by next (only when pooled)
+   private int modCount;         // number of structural changes, checked by iterators
+                                 // (this class is not thread-safe: see ConcurrentLinkedListWithIterator)
    
-   private int count;  // debug variable to count number of operations
+   private final Counter count = Metrics.newCounter();  // debug counter of the number of operations
 
    public LinkedListWithIterator() {
-	   initializeDataFields();
+	   this(false);
    } // end default constructor
 
+   // A pooled list keeps the nodes that remove() and clear() take out of the
+   // chain, and reuses them in add(), so a list that is cleared and refilled
+   // stops allocating once it has reached its largest size.
+   // The pool is never shrunk: it holds as many nodes as the list ever had.
+   public LinkedListWithIterator(boolean pooled) {
+	   this.pooled = pooled;
+	   initializeDataFields();
+   } // end constructor
+
    public void clear()	{
+	   if (pooled)
+		   for (Node<T> node = head; node != null; ) {
+			   Node<T> next = node.getNext();
+			   recycle(node);
+			   node = next;
+		   }
 	   initializeDataFields();
    } // end clear 
 	
 	// Method to return value of count variable
    public int getCount() {
-	   return count;
+	   return (int) count.sum();
    }	
 	
    public void resetCount() {
-	   this.count = 0;
+	   count.reset();
    }
 	
    public boolean isEmpty()  {
       boolean result;
 
       if (size == 0)   {
-         assert head == null;
+         assert head == null && tail == null;
          result = true;
       }
       else  {
-         assert head != null;
+         assert head != null && tail != null;
          result = false;
       } // end if
 
@@ -51,28 +81,31 @@ public class LinkedListWithIterator<T> implements Iterable<T> {
    	
     // adds to the end by default
 	public void add(T newEntry) {
-		Node<T> newNode = new Node<T>(newEntry);
+		Node<T> newNode = newNode(newEntry);
 
 		if (isEmpty())
 			head = newNode;
 		else                                      // Add to end of non-empty list
-		{
-			Node<T> lastNode = getNodeAt(size-1);
-			lastNode.setNext(newNode);         // Make last node reference new node
-		} // end if	
+			tail.setNext(newNode);             // Make last node reference new node
+		tail = newNode;                           // O(1): no traversal needed
 		
 		size++;
+		modCount++;
 	}  // end add
 	
 	//adds at a specified position
     public void add(int newPosition, T newEntry) {
  		if ((newPosition >= 0) && (newPosition <= size)) {
-			Node<T> newNode = new Node<T>(newEntry);
+			Node<T> newNode = newNode(newEntry);
 			
 			// Case 1: new position is 0
 			if (newPosition == 0) 	{
 				newNode.setNext(head);
 				head = newNode;
+				if (size == 0)
+					tail = newNode;
+				if (fingerIndex >= 0)              // the finger node moved one position on
+					fingerIndex++;
 			}
 			//case 2: list is not empty and new Position > 0
 			else {                                      
@@ -80,9 +113,12 @@ public class LinkedListWithIterator<T> implements Iterable<T> {
 				Node<T> nodeAfter = nodeBefore.getNext();
 				newNode.setNext(nodeAfter);
 				nodeBefore.setNext(newNode);
+				if (nodeAfter == null)             // added after the last node
+					tail = newNode;
 			} // end if
          
 			size++;
+			modCount++;
 		}
       else
          throw new IndexOutOfBoundsException("Illegal position given to add operation.");
@@ -91,13 +127,21 @@ public class LinkedListWithIterator<T> implements Iterable<T> {
 	public T remove(int givenPosition) {
       T result = null;                          // Return value
       
-      if ((givenPosition >= 0) && (givenPosition <= size))  {
+      if ((givenPosition >= 0) && (givenPosition < size))  {
          assert !isEmpty();
          
          // Case 1: remove first entry
          if (givenPosition == 0)   {
+            Node<T> nodeToRemove = head;
             result = head.getData();       // Save entry to be removed
+            if (fingerIndex == 0)          // the finger is on the removed node
+               fingerIndex = -1;
+            else if (fingerIndex > 0)
+               fingerIndex--;
             head = head.getNext();
+            if (head == null)              // the list is now empty
+               tail = null;
+            recycle(nodeToRemove);
          }
          // Case 2: not first entry
          else {
@@ -105,10 +149,14 @@ public class LinkedListWithIterator<T> implements Iterable<T> {
             Node<T> nodeToRemove = nodeBefore.getNext();
             Node<T> nodeAfter = nodeToRemove.getNext();
             nodeBefore.setNext(nodeAfter);
+            if (nodeToRemove == tail)      // removed the last node
+               tail = nodeBefore;
             result = nodeToRemove.getData();    // Save entry to be removed
+            recycle(nodeToRemove);
          } // end if
          
          size--;
+         modCount++;
          return result;                         // Return removed entry
       }
       else
@@ -118,7 +166,7 @@ public class LinkedListWithIterator<T> implements Iterable<T> {
 	
    
    public T get(int givenPosition) {
-		if ((givenPosition >= 0) && (givenPosition <= size)) {
+		if ((givenPosition >= 0) && (givenPosition < size)) {
 			assert !isEmpty();
 			return getNodeAt(givenPosition).getData();
      	}
@@ -133,32 +181,74 @@ public class LinkedListWithIterator<T> implements Iterable<T> {
    public Iterator<T> iterator()   {
 	   return new IteratorForLinkedList();
    } // end iterator
+
+   // Makes StreamSupport.stream(list.spliterator(), true) split the list
+   // into parts that other threads can work on (see SpliteratorForLinkedList)
+   public Spliterator<T> spliterator()   {
+	   return new SpliteratorForLinkedList();
+   } // end spliterator
    
    // Initializes the class's data fields to rebuild an empty list.
    private void initializeDataFields()  {
 		head = null;
+		tail = null;
 		size = 0;
-		count = 0;
+		finger = null;
+		fingerIndex = -1;
+		modCount++;
+		count.reset();
    } // end initializeDataFields
 	
+   // Returns a node holding newEntry, taken from the pool if there is one.
+   private Node<T> newNode(T newEntry) {
+		Node<T> node = freeNodes;
+		if (node == null)
+			return new Node<T>(newEntry);
+		freeNodes = node.getNext();
+		node.setData(newEntry);
+		node.setNext(null);
+		return node;
+   } // end newNode
+
+   // Puts a node that is no longer in the chain into the pool.
+   // The entry is dropped so that the pool does not keep it alive.
+   private void recycle(Node<T> node) {
+		if (pooled) {
+			node.setData(null);
+			node.setNext(freeNodes);
+			freeNodes = node;
+		}
+   } // end recycle
+
    // Returns a reference to the node at a given position.
+   // The search starts at the finger when the position is not before it,
+   // so get(i), get(i+1), ... take one step each instead of i steps.
    // Preconditions: List is not empty;
    //               0 <= givenPosition < size.
 	private Node<T> getNodeAt(int givenPosition) {
 		assert !isEmpty() && (0 <= givenPosition) && (givenPosition < size);
+		if (givenPosition == size - 1)
+			return tail;
 		Node<T> currentNode = head;
+		int counter = 0;
+		if ((fingerIndex >= 0) && (fingerIndex <= givenPosition)) {
+			currentNode = finger;
+			counter = fingerIndex;
+		}
 		
       // Traverse the chain to locate the desired node (skipped
-      // if givenPosition is 0)
-		for (int counter = 0; counter < givenPosition; counter++) {
+      // if already there)
+		for ( ; counter < givenPosition; counter++) {
 			currentNode = currentNode.getNext();
 		
 			/*******************************/
-			count++;							//counting operations
+			count.increment();					//counting operations
 			/*******************************/
 		}
 		
 		assert currentNode != null;
+		finger = currentNode;
+		fingerIndex = givenPosition;
       
 		return currentNode;
 	} // end getNodeAt
@@ -167,6 +257,7 @@ public class LinkedListWithIterator<T> implements Iterable<T> {
 
 	private class IteratorForLinkedList implements Iterator<T>	{
 		private Node<T> nextNode;  // Node containing next entry in iteration
+		private final int expectedModCount = modCount;
 
 		private IteratorForLinkedList() {
 			nextNode = head;
@@ -176,13 +267,17 @@ public class LinkedListWithIterator<T> implements Iterable<T> {
 			return nextNode != null;
 		} // end hasNext
 
+		// Fails fast if the list was changed after the iterator was created,
+		// since nextNode may then be a removed (or recycled) node
 		public T next()	{
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException("The list was changed during the iteration");
 			if (hasNext())	{
 				Node<T> returnNode = nextNode;        	// Get next node
 				nextNode = nextNode.getNext(); 			// Advance iterator
 
 				/*******************************/
-				count++;							//counting operations
+				count.increment();					//counting operations
 				/*******************************/
 
 				return returnNode.getData();       // Return next entry in iteration
@@ -198,10 +293,87 @@ public class LinkedListWithIterator<T> implements Iterable<T> {
 		} // end remove
 	} // end IteratorForLinkedList
 
+//==================================
+
+	// A chain of nodes cannot be cut in the middle without walking to it, so
+	// trySplit() walks the first batch of nodes, copies their entries into an
+	// array and hands that array to another thread; this spliterator keeps the
+	// rest of the chain. Every batch is 1024 entries bigger than the one before,
+	// so a long list is split into a few parts without too many copies.
+	// (java.util.LinkedList splits the same way.)
+	private class SpliteratorForLinkedList implements Spliterator<T>	{
+		private static final int BATCH_UNIT = 1 << 10;
+		private static final int MAX_BATCH = 1 << 25;
+
+		private Node<T> nextNode = head;  // Node containing next entry
+		private int remaining = size;     // entries from nextNode to the end
+		private int batch;                // size of the last batch split off
+		private final int expectedModCount = modCount;
+
+		public boolean tryAdvance(Consumer<? super T> action)	{
+			checkForChanges();
+			if (remaining == 0)
+				return false;
+			T data = nextNode.getData();
+			nextNode = nextNode.getNext();
+			remaining--;
+			count.increment();
+			action.accept(data);
+			checkForChanges();
+			return true;
+		} // end tryAdvance
+
+		// Checks for changes before every step: an action that removes
+		// entries could otherwise leave nextNode on an unlinked (or recycled) node
+		public void forEachRemaining(Consumer<? super T> action)	{
+			for ( ; remaining > 0; remaining--) {
+				checkForChanges();
+				T data = nextNode.getData();
+				nextNode = nextNode.getNext();
+				count.increment();
+				action.accept(data);
+			}
+			checkForChanges();
+		} // end forEachRemaining
+
+		public Spliterator<T> trySplit()	{
+			checkForChanges();
+			if (remaining <= 1)
+				return null;
+			int n = Math.min(Math.min(batch + BATCH_UNIT, MAX_BATCH), remaining);
+			if (n == remaining)               // keep something for this spliterator
+				n = remaining / 2;
+			Object [] entries = new Object[n];
+			for (int i = 0; i < n; i++) {
+				entries[i] = nextNode.getData();
+				nextNode = nextNode.getNext();
+			}
+			count.add(n);
+			remaining -= n;
+			batch = n;
+			return Spliterators.spliterator(entries, 0, n, Spliterator.ORDERED);
+		} // end trySplit
+
+		public long estimateSize()	{
+			return remaining;
+		} // end estimateSize
+
+		public int characteristics()	{
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+		} // end characteristics
+
+		// remaining and nextNode are only valid while the list is unchanged
+		private void checkForChanges()	{
+			if (modCount != expectedModCount || (remaining > 0 && nextNode == null))
+				throw new ConcurrentModificationException("The list was changed during the iteration");
+		} // end checkForChanges
+	} // end SpliteratorForLinkedList
+
 	// Method to iterate through the list, using the get()
 	// method.  Note that from the user's point of view, getEntry()
 	// is a single operation, but the getCount() method reveals that
-	// it actually is not.
+	// it actually is not. Going forward, the finger makes each get()
+	// one step; going backward, each get() still starts from head.
 	public static void LoopWithGet(LinkedListWithIterator<Integer> L)	{
 		System.out.println("Iterating using get() method");
 		L.resetCount();
@@ -212,6 +384,16 @@ public class LinkedListWithIterator<T> implements Iterable<T> {
 		System.out.println("Count of operations: " + L.getCount() + "\n");
 	}
 
+	public static void LoopWithGetBackwards(LinkedListWithIterator<Integer> L)	{
+		System.out.println("Iterating backwards using get() method");
+		L.resetCount();
+		for (int i = L.getSize() - 1; i >= 0; i--)
+			System.out.print(L.get(i) + " ");
+		
+		System.out.println();
+		System.out.println("Count of operations: " + L.getCount() + "\n");
+	}
+
 	// Method to iterate through the list, using an iterator as
 	// shown.  To the user it does not seem much different from the
 	// method above, but the getCount() method reveals the difference
@@ -227,12 +409,80 @@ public class LinkedListWithIterator<T> implements Iterable<T> {
 		System.out.println("Count: " + L.getCount() + "\n");
 	}
 
+	// Clears and refills a list many times and reports the bytes allocated,
+	// without and with the node pool
+	public static void RefillAllocation(int rounds, int entries)	{
+		Integer [] values = new Integer[entries];
+		for (int i = 0; i < entries; i++)
+			values[i] = Integer.valueOf(i);
+
+		for (boolean pooled : new boolean[] {false, true}) {
+			LinkedListWithIterator<Integer> L = new LinkedListWithIterator<Integer>(pooled);
+			long before = Metrics.allocatedBytes();
+			long start = System.nanoTime();
+			for (int r = 0; r < rounds; r++) {
+				L.clear();
+				for (int i = 0; i < entries; i++)
+					L.add(values[i]);
+			}
+			long end = System.nanoTime();
+			long bytes = Metrics.allocatedBytes() - before;
+			System.out.printf("%s: %d refills of %d entries allocated %,d bytes (%.1f per add) in %d ms%n",
+					pooled ? "Pooled  " : "Unpooled", rounds, entries, bytes,
+					(double) bytes / ((long) rounds * entries), (end - start) / 1000000);
+		}
+	}
+
+	// Sums a list with a parallel stream, using the default spliterator of
+	// Iterable (which does not know the size) and the one of this class
+	public static void StreamSum(int entries)	{
+		LinkedListWithIterator<Integer> L = new LinkedListWithIterator<Integer>();
+		for (int i = 0; i < entries; i++)
+			L.add(Integer.valueOf(i % 1000));
+
+		for (int round = 0; round < 5; round++) {
+			long start = System.nanoTime();
+			long sum1 = StreamSupport.stream(Spliterators.spliteratorUnknownSize(L.iterator(), Spliterator.ORDERED), true)
+					.mapToLong(v -> (long) v * v).sum();
+			long middle = System.nanoTime();
+			long sum2 = StreamSupport.stream(L.spliterator(), true).mapToLong(v -> (long) v * v).sum();
+			long end = System.nanoTime();
+			if (round == 4)
+				System.out.printf("Parallel stream over %d entries: default spliterator %d ms, list spliterator %d ms (sums %d, %d)%n",
+						entries, (middle - start) / 1000000, (end - middle) / 1000000, sum1, sum2);
+		}
+	}
+
+	// Removes entries from a list while a stream is going through it:
+	// the spliterator reports this instead of reading unlinked nodes
+	public static void StreamWithChanges()	{
+		for (boolean pooled : new boolean[] {false, true}) {
+			LinkedListWithIterator<Integer> L = new LinkedListWithIterator<Integer>(pooled);
+			for (int i = 0; i < 10; i++)
+				L.add(Integer.valueOf(i));
+			try {
+				StreamSupport.stream(L.spliterator(), false).forEach(v -> {
+					if (v == 5)
+						L.clear();
+				});
+				System.out.println("No exception: the change was not noticed!");
+			}
+			catch (ConcurrentModificationException e) {
+				System.out.println((pooled ? "Pooled" : "Unpooled") + " list changed during a stream: " + e.getMessage());
+			}
+		}
+	}
+
 	public static void main(String [] args)	{
 		LinkedListWithIterator<Integer> L = new LinkedListWithIterator<Integer>();
 		for (int i = 0; i < 100; i++)
 			L.add(Integer.valueOf(i));
 		LoopWithGet(L);
+		LoopWithGetBackwards(L);
 		LoopWithIterator(L);
+		RefillAllocation(200, 100000);
+		StreamSum(1000000);
+		StreamWithChanges();
 	}
 } // end LinkedListWithIterator
 
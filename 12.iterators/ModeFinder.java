@@ -0,0 +1,221 @@
+// Linear-time mode of a list or array of ints.
+// The methods in ModeIterators count the occurrences of every value by
+// scanning the whole list again, which is O(n^2). Here every value is counted
+// once, in one pass, in one of three ways:
+//    DENSE  - an int [] with one counter per value between min and max,
+//             when that range is small (e.g. the demo's nextInt(1000))
+//    HASH   - an IntCountMap (open addressing, no Integer objects)
+//    SORT   - a sorted copy, where equal values are next to each other
+//             (no extra table at all, O(n log n))
+// The answer is the same as getModeIterator1's: among the values with the
+// highest count, the one that occurs first in the list.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class ModeFinder {
+	public enum Strategy { DENSE, HASH, SORT }
+
+	// The largest value range that gets a dense table, as a multiple of n:
+	// beyond this the table costs more to clear and scan than hashing n values
+	private static final int DENSE_RANGE_PER_VALUE = 2;
+	private static final int DENSE_MIN_RANGE = 1 << 16;   // always fine (256 KB)
+	private static final int DENSE_MAX_RANGE = 1 << 26;   // at most 256 MB
+	// IntCountMap keeps its arrays at most half full, so beyond this
+	// many distinct values it could not grow any further
+	private static final int HASH_MAX_VALUES = 1 << 29;
+
+	// The mode, how often it occurs, and where it first occurs
+	public static class Mode {
+		private final int value;
+		private final int count;
+		private final int firstIndex;
+
+		public Mode(int value, int count, int firstIndex) {
+			this.value = value;
+			this.count = count;
+			this.firstIndex = firstIndex;
+		}
+
+		public int getValue() {
+			return value;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		// Index of the first occurrence of the mode, -1 for an empty input
+		public int getFirstIndex() {
+			return firstIndex;
+		}
+
+		public String toString() {
+			return (count == 0) ? "There is no mode (no values)"
+					: "The mode is " + value + " with " + count + " occurrences ";
+		}
+	}
+
+	// Mode of a list (of non-null Integers); the values are copied into an
+	// int [] once, with a single iterator, so this is O(n) for a linked list too
+	public static Mode findMode(List<Integer> L) {
+		int [] A = new int [L.size()];
+		int i = 0;
+		for (Integer value : L)
+			A[i++] = value;
+		return findMode(A);
+	}
+
+	public static Mode findMode(int [] A) {
+		return findMode(A, choose(A));
+	}
+
+	// Picks the strategy for A from the range of its values
+	public static Strategy choose(int [] A) {
+		if (A.length == 0)
+			return Strategy.DENSE;
+		int min = A[0], max = A[0];
+		for (int v : A) {
+			if (v < min)
+				min = v;
+			if (v > max)
+				max = v;
+		}
+		long range = (long) max - min + 1;
+		if (range <= DENSE_MAX_RANGE
+				&& range <= Math.max(DENSE_MIN_RANGE, (long) DENSE_RANGE_PER_VALUE * A.length))
+			return Strategy.DENSE;
+		if (A.length <= HASH_MAX_VALUES)
+			return Strategy.HASH;
+		return Strategy.SORT;
+	}
+
+	public static Mode findMode(int [] A, Strategy strategy) {
+		if (A.length == 0)
+			return new Mode(0, 0, -1);
+		switch (strategy) {
+			case DENSE:
+				return findModeDense(A);
+			case HASH:
+				return findModeHash(A);
+			default:
+				return findModeSort(A);
+		}
+	}
+
+	private static Mode findModeDense(int [] A) {
+		int min = A[0], max = A[0];
+		for (int v : A) {
+			if (v < min)
+				min = v;
+			if (v > max)
+				max = v;
+		}
+		int [] counts = new int [(int) ((long) max - min + 1)];
+		int maxCount = 0;
+		for (int v : A) {
+			int c = ++counts[v - min];
+			if (c > maxCount)
+				maxCount = c;
+		}
+		// the first value in A that has the highest count
+		for (int i = 0; ; i++)
+			if (counts[A[i] - min] == maxCount)
+				return new Mode(A[i], maxCount, i);
+	}
+
+	private static Mode findModeHash(int [] A) {
+		IntCountMap counts = new IntCountMap(Math.min(A.length, 1 << 16));
+		int maxCount = 0;
+		for (int v : A) {
+			int c = counts.increment(v);
+			if (c > maxCount)
+				maxCount = c;
+		}
+		for (int i = 0; ; i++)
+			if (counts.get(A[i]) == maxCount)
+				return new Mode(A[i], maxCount, i);
+	}
+
+	private static Mode findModeSort(int [] A) {
+		int [] sorted = A.clone();
+		Arrays.sort(sorted);
+		int maxCount = 0;
+		for (int start = 0, end; start < sorted.length; start = end) {
+			for (end = start + 1; end < sorted.length && sorted[end] == sorted[start]; end++)
+				;
+			if (end - start > maxCount)
+				maxCount = end - start;
+		}
+		// the count of A[i] is the length of its run in the sorted copy
+		for (int i = 0; ; i++)
+			if (runLength(sorted, A[i]) == maxCount)
+				return new Mode(A[i], maxCount, i);
+	}
+
+	// Number of copies of value in the sorted array (which contains it)
+	private static int runLength(int [] sorted, int value) {
+		int lo = 0, hi = sorted.length;       // first index with sorted[index] >= value
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (sorted[mid] < value)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		int first = lo;
+		hi = sorted.length;                   // first index with sorted[index] > value
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (sorted[mid] <= value)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo - first;
+	}
+
+	// Times every strategy on n values from a small range (the ModeIterators
+	// demo) and from the whole int range
+	public static void main(String [] args) {
+		int n = (args.length > 0) ? Integer.parseInt(args[0]) : 10000000;
+		Random R = new Random(1);
+		int [] small = new int [n];
+		int [] wide = new int [n];
+		for (int i = 0; i < n; i++) {
+			small[i] = R.nextInt(1000);
+			wide[i] = R.nextInt(n / 4) * 7919;     // repeats, but spread over the int range
+		}
+
+		for (int [] A : new int [][] {small, wide}) {
+			System.out.println("\n" + n + " values" + ((A == small) ? " in [0, 1000)" : " over the int range")
+					+ ": automatic choice is " + choose(A));
+			Mode expected = null;
+			for (Strategy s : Strategy.values()) {
+				if (s == Strategy.DENSE && choose(A) != Strategy.DENSE)
+					continue;                      // the table would be too large
+				Mode m = null;
+				long best = Long.MAX_VALUE;
+				for (int round = 0; round < 5; round++) {
+					long start = System.nanoTime();
+					m = findMode(A, s);
+					best = Math.min(best, System.nanoTime() - start);
+				}
+				if (expected == null)
+					expected = m;
+				System.out.printf("%-5s %8.1f ms   %s(at %d)%s%n", s, best / 1e6, m, m.getFirstIndex(),
+						(m.getValue() == expected.getValue() && m.getCount() == expected.getCount()) ? "" : "  MISMATCH");
+			}
+		}
+
+		// The same answer as the O(n^2) version on the demo's data
+		System.out.println();
+		List<Integer> L = new ArrayList<Integer>();
+		for (int i = 0; i < 10000; i++)
+			L.add(small[i]);
+		ModeIterators.getModeIterator1(L);
+		System.out.println(findMode(L));
+	}
+}
@@ -49,6 +49,27 @@ public class ModeIterators {
 		getModeNoIterator(L2);
 		end = System.currentTimeMillis();
 		System.out.println("ArrayList: finished in " + (end-start) + "ms.");	
+
+		int [] A = new int[L2.size()];
+		for (int i = 0; i < A.length; i++)
+			A[i] = L2.get(i);
+
+		System.out.println("\nCalculating mode over a primitive array: ");
+		start = System.currentTimeMillis();
+		getModeArray(A);
+		end = System.currentTimeMillis();
+		System.out.println("int []: finished in " + (end-start) + "ms.");
+
+		System.out.println("\nCalculating mode by counting every value once (ModeFinder): ");
+		start = System.currentTimeMillis();
+		System.out.println(ModeFinder.findMode(L1));
+		end = System.currentTimeMillis();
+		System.out.println("LinkedList: finished in " + (end-start) + "ms.");
+
+		start = System.currentTimeMillis();
+		System.out.println(ModeFinder.findMode(A));
+		end = System.currentTimeMillis();
+		System.out.println("int []: finished in " + (end-start) + "ms.");
 	}
 
 	// Using nested iterators to calculate the mode of a list of
@@ -141,4 +162,29 @@ public class ModeIterators {
 		System.out.println("The mode is " + theMode + " with " + modeCount +
 						   " occurrences ");
 	}	
+
+	// The same nested loops over an int [] - for example a text encoded as
+	// word ids. There are no Integer objects to unbox and no equals() calls,
+	// and the values are next to each other in memory.
+	public static void getModeArray(int [] A)
+	{
+		int theMode = 0;
+		int modeCount = 0, currCount = 0;
+		for (int i = 0; i < A.length; i++)
+		{
+			currCount = 0;
+			for (int j = i; j < A.length; j++)
+			{
+				if (A[j] == A[i])
+					currCount++;
+			}
+			if (currCount > modeCount)
+			{
+				theMode = A[i];
+				modeCount = currCount;
+			}
+		}
+		System.out.println("The mode is " + theMode + " with " + modeCount +
+						   " occurrences ");
+	}
 }
\ No newline at end of file
@@ -0,0 +1,399 @@
+// Mode of a large int [] or List<Integer> using several threads.
+//
+// The input is cut into pieces (index ranges of the array, or parts of the
+// list obtained from its spliterator), which are counted by fork/join tasks.
+// When the values lie in a small range, every worker thread counts all the
+// pieces it runs into its own int [], and the few tables are added up at the
+// end. Otherwise every piece is counted into its own IntCountMap, and the maps
+// of two neighbouring tasks are added together when both are done.
+//
+// The answer is the same as ModeFinder's (and getModeIterator1's): among the
+// values with the highest count, the one that occurs first. The pieces are
+// searched for their first occurrence of a value with that count, and the
+// smallest of these indices wins.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+public class ParallelModeFinder {
+	// so that a thread that is done early can take over pieces of the others
+	private static final int PIECES_PER_THREAD = 4;
+	// every worker gets its own dense table, so keep them small (4 MB)
+	private static final int DENSE_MAX_RANGE = 1 << 20;
+
+	// values[from..to-1], which are the entries baseIndex, baseIndex+1, ... of the input
+	private static class Piece {
+		int [] values;
+		int from, to;
+		int baseIndex;
+		int min, max;
+		Spliterator<Integer> source;   // for a list: the part to unbox into values
+
+		Piece(int [] values, int from, int to, int baseIndex) {
+			this.values = values;
+			this.from = from;
+			this.to = to;
+			this.baseIndex = baseIndex;
+		}
+
+		Piece(Spliterator<Integer> source, int baseIndex) {
+			this.source = source;
+			this.baseIndex = baseIndex;
+		}
+	}
+
+	// Counts of the values of some pieces
+	private interface Histogram {
+		void count(Piece piece);
+		Histogram merge(Histogram other);   // adds other into this or other, returns that one
+		int get(int value);
+		int maxCount();
+	}
+
+	private static class DenseHistogram implements Histogram {
+		private final int min;
+		private final int [] counts;
+
+		DenseHistogram(int min, int max) {
+			this.min = min;
+			counts = new int [max - min + 1];
+		}
+
+		public void count(Piece piece) {
+			int [] values = piece.values;
+			for (int i = piece.from; i < piece.to; i++)
+				counts[values[i] - min]++;
+		}
+
+		public Histogram merge(Histogram other) {
+			int [] more = ((DenseHistogram) other).counts;
+			for (int v = 0; v < counts.length; v++)
+				counts[v] += more[v];
+			return this;
+		}
+
+		public int get(int value) {
+			return counts[value - min];
+		}
+
+		public int maxCount() {
+			int max = 0;
+			for (int c : counts)
+				max = Math.max(max, c);
+			return max;
+		}
+	}
+
+	// The dense tables of the workers of one pool, one per pool index
+	private static class DenseTables {
+		private final int min, max;
+		private DenseHistogram [] tables = new DenseHistogram [0];
+
+		DenseTables(int min, int max) {
+			this.min = min;
+			this.max = max;
+		}
+
+		// The table of the thread running this; slot 0 is for the thread that
+		// invoked the pool, if it runs a task itself. Only that thread counts into it.
+		synchronized DenseHistogram forCurrentThread() {
+			Thread t = Thread.currentThread();
+			int slot = (t instanceof ForkJoinWorkerThread) ? ((ForkJoinWorkerThread) t).getPoolIndex() + 1 : 0;
+			if (slot >= tables.length)
+				tables = Arrays.copyOf(tables, slot + 1);
+			if (tables[slot] == null)
+				tables[slot] = new DenseHistogram(min, max);
+			return tables[slot];
+		}
+
+		// All the tables added into one; call when the counting tasks are done
+		synchronized Histogram sum() {
+			Histogram sum = null;
+			for (DenseHistogram table : tables)
+				if (table != null)
+					sum = (sum == null) ? table : sum.merge(table);
+			return sum;
+		}
+	}
+
+	private static class HashHistogram implements Histogram {
+		private IntCountMap counts;
+
+		public void count(Piece piece) {
+			counts = new IntCountMap(Math.min(piece.to - piece.from, 1 << 20));
+			int [] values = piece.values;
+			for (int i = piece.from; i < piece.to; i++)
+				counts.increment(values[i]);
+		}
+
+		public Histogram merge(Histogram other) {
+			HashHistogram into = (counts.size() >= ((HashHistogram) other).counts.size()) ? this : (HashHistogram) other;
+			IntCountMap from = ((into == this) ? (HashHistogram) other : this).counts;
+			from.forEach(into.counts::add);
+			return into;
+		}
+
+		public int get(int value) {
+			return counts.get(value);
+		}
+
+		public int maxCount() {
+			int [] max = {0};
+			counts.forEach((value, count) -> max[0] = Math.max(max[0], count));
+			return max[0];
+		}
+	}
+
+	// Unboxes the list pieces and finds min and max of pieces from .. to-1
+	@SuppressWarnings("serial")
+	private static class PrepareTask extends RecursiveAction {
+		private final Piece [] pieces;
+		private final int from, to;
+
+		PrepareTask(Piece [] pieces, int from, int to) {
+			this.pieces = pieces;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from == 1) {
+				Piece piece = pieces[from];
+				if (piece.source != null) {
+					int [] values = new int [(int) piece.source.getExactSizeIfKnown()];
+					int [] next = {0};
+					piece.source.forEachRemaining(value -> values[next[0]++] = value);
+					piece.values = values;
+					piece.from = 0;
+					piece.to = values.length;
+					piece.source = null;
+				}
+				int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+				for (int i = piece.from; i < piece.to; i++) {
+					min = Math.min(min, piece.values[i]);
+					max = Math.max(max, piece.values[i]);
+				}
+				piece.min = min;
+				piece.max = max;
+			}
+			else {
+				int mid = (from + to) / 2;
+				invokeAll(new PrepareTask(pieces, from, mid), new PrepareTask(pieces, mid, to));
+			}
+		}
+	} // end PrepareTask
+
+	// Counts the values of pieces from .. to-1: into the tables of the
+	// workers if dense is not null (and returns null), else into a map
+	@SuppressWarnings("serial")
+	private static class CountTask extends RecursiveTask<Histogram> {
+		private final Piece [] pieces;
+		private final int from, to;
+		private final DenseTables dense;
+
+		CountTask(Piece [] pieces, int from, int to, DenseTables dense) {
+			this.pieces = pieces;
+			this.from = from;
+			this.to = to;
+			this.dense = dense;
+		}
+
+		protected Histogram compute() {
+			if (to - from == 1) {
+				if (dense != null) {
+					dense.forCurrentThread().count(pieces[from]);
+					return null;
+				}
+				Histogram h = new HashHistogram();
+				h.count(pieces[from]);
+				return h;
+			}
+
+			int mid = (from + to) / 2;
+			CountTask left = new CountTask(pieces, from, mid, dense);
+			CountTask right = new CountTask(pieces, mid, to, dense);
+			left.fork();
+			Histogram rightCounts = right.compute();
+			Histogram leftCounts = left.join();
+			return (dense != null) ? null : leftCounts.merge(rightCounts);
+		}
+	} // end CountTask
+
+	// Smallest input index, in pieces from .. to-1, of a value that occurs modeCount times
+	@SuppressWarnings("serial")
+	private static class FirstTask extends RecursiveTask<Integer> {
+		private final Piece [] pieces;
+		private final int from, to;
+		private final Histogram counts;
+		private final int modeCount;
+
+		FirstTask(Piece [] pieces, int from, int to, Histogram counts, int modeCount) {
+			this.pieces = pieces;
+			this.from = from;
+			this.to = to;
+			this.counts = counts;
+			this.modeCount = modeCount;
+		}
+
+		protected Integer compute() {
+			if (to - from == 1) {
+				Piece piece = pieces[from];
+				for (int i = piece.from; i < piece.to; i++)
+					if (counts.get(piece.values[i]) == modeCount)
+						return piece.baseIndex + (i - piece.from);
+				return Integer.MAX_VALUE;
+			}
+
+			int mid = (from + to) / 2;
+			FirstTask left = new FirstTask(pieces, from, mid, counts, modeCount);
+			FirstTask right = new FirstTask(pieces, mid, to, counts, modeCount);
+			left.fork();
+			int rightFirst = right.compute();
+			int leftFirst = left.join();
+			return Math.min(leftFirst, rightFirst);
+		}
+	} // end FirstTask
+
+	public static ModeFinder.Mode findMode(int [] A, int threads) {
+		int pieceCount = Math.max(1, Math.min(A.length, threads * PIECES_PER_THREAD));
+		Piece [] pieces = new Piece [pieceCount];
+		for (int p = 0; p < pieceCount; p++) {
+			int from = (int) ((long) A.length * p / pieceCount);
+			int to = (int) ((long) A.length * (p + 1) / pieceCount);
+			pieces[p] = new Piece(A, from, to, from);
+		}
+		return findMode(pieces, threads);
+	}
+
+	// The list is split with its spliterator; each part is unboxed by the
+	// task that counts it. A list whose spliterator cannot tell the size of
+	// its parts (not SUBSIZED) is copied into an int [] first.
+	public static ModeFinder.Mode findMode(List<Integer> L, int threads) {
+		Spliterator<Integer> whole = L.spliterator();
+		if (!whole.hasCharacteristics(Spliterator.SUBSIZED)) {
+			int [] A = new int [L.size()];
+			int i = 0;
+			for (Integer value : L)
+				A[i++] = value;
+			return findMode(A, threads);
+		}
+
+		// split the largest part until there are enough; trySplit returns
+		// the first half, so the parts stay in list order
+		List<Spliterator<Integer>> parts = new ArrayList<Spliterator<Integer>>();
+		parts.add(whole);
+		int target = threads * PIECES_PER_THREAD;
+		while (parts.size() < target) {
+			int largest = 0;
+			for (int p = 1; p < parts.size(); p++)
+				if (parts.get(p).estimateSize() > parts.get(largest).estimateSize())
+					largest = p;
+			Spliterator<Integer> prefix = parts.get(largest).trySplit();
+			if (prefix == null)
+				break;
+			parts.add(largest, prefix);
+		}
+
+		Piece [] pieces = new Piece [parts.size()];
+		int baseIndex = 0;
+		for (int p = 0; p < pieces.length; p++) {
+			pieces[p] = new Piece(parts.get(p), baseIndex);
+			baseIndex += (int) parts.get(p).getExactSizeIfKnown();
+		}
+		return findMode(pieces, threads);
+	}
+
+	private static ModeFinder.Mode findMode(Piece [] pieces, int threads) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			pool.invoke(new PrepareTask(pieces, 0, pieces.length));
+			int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+			int n = 0;
+			for (Piece piece : pieces) {
+				min = Math.min(min, piece.min);
+				max = Math.max(max, piece.max);
+				n += piece.to - piece.from;
+			}
+			if (n == 0)
+				return new ModeFinder.Mode(0, 0, -1);
+
+			DenseTables dense = ((long) max - min + 1 <= DENSE_MAX_RANGE) ? new DenseTables(min, max) : null;
+			Histogram counts = pool.invoke(new CountTask(pieces, 0, pieces.length, dense));
+			if (dense != null)
+				counts = dense.sum();
+			int modeCount = counts.maxCount();
+			int first = pool.invoke(new FirstTask(pieces, 0, pieces.length, counts, modeCount));
+
+			Piece holder = pieces[0];                 // the piece holding index first
+			for (Piece piece : pieces)
+				if (piece.baseIndex <= first && piece.to > piece.from)
+					holder = piece;
+			return new ModeFinder.Mode(holder.values[holder.from + first - holder.baseIndex], modeCount, first);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	// java ParallelModeFinder [maxThreads] [n]
+	// Finds the mode of n random values with 1, 2, 4, ... up to maxThreads threads
+	// (default: all processors), for values in a small and in a wide range,
+	// and for an ArrayList and a LinkedList
+	public static void main(String [] args) {
+		int maxThreads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		int n = (args.length > 1) ? Integer.parseInt(args[1]) : 10000000;
+		final int runs = 5;
+
+		Random R = new Random(1);
+		int [] small = new int [n];
+		int [] wide = new int [n];
+		for (int i = 0; i < n; i++) {
+			small[i] = R.nextInt(1000);
+			wide[i] = R.nextInt(n / 4) * 7919;
+		}
+
+		for (int [] A : new int [][] {small, wide}) {
+			ModeFinder.Mode expected = ModeFinder.findMode(A);
+			System.out.println(n + " values" + ((A == small) ? " in [0, 1000)" : " over the int range")
+					+ ": sequential answer " + expected + "(at " + expected.getFirstIndex() + ")");
+			// 1, 2, 4, ... threads, and maxThreads last
+			for (int threads = 1; threads <= maxThreads; threads = (threads < maxThreads) ? Math.min(2 * threads, maxThreads) : threads + 1) {
+				long best = Long.MAX_VALUE;
+				ModeFinder.Mode m = null;
+				for (int r = 0; r < runs; r++) {
+					long start = System.nanoTime();
+					m = findMode(A, threads);
+					best = Math.min(best, System.nanoTime() - start);
+				}
+				System.out.printf("  %2d threads: best of %d runs %.2f ms %s%n", threads, runs,
+						best / 1e6, sameMode(m, expected) ? "" : "WRONG ANSWER " + m);
+			}
+		}
+
+		int listSize = Math.min(n, 1000000);
+		List<Integer> arrayList = new ArrayList<Integer>();
+		for (int i = 0; i < listSize; i++)
+			arrayList.add(small[i]);
+		List<Integer> linkedList = new LinkedList<Integer>(arrayList);
+		ModeFinder.Mode expected = ModeFinder.findMode(arrayList);
+		for (List<Integer> L : List.of(arrayList, linkedList)) {
+			long start = System.nanoTime();
+			ModeFinder.Mode m = findMode(L, maxThreads);
+			long end = System.nanoTime();
+			System.out.printf("%s of %d values, %d threads: %.2f ms %s%n", L.getClass().getSimpleName(), listSize,
+					maxThreads, (end - start) / 1e6, sameMode(m, expected) ? "" : "WRONG ANSWER " + m);
+		}
+	}
+
+	private static boolean sameMode(ModeFinder.Mode a, ModeFinder.Mode b) {
+		return a.getValue() == b.getValue() && a.getCount() == b.getCount() && a.getFirstIndex() == b.getFirstIndex();
+	}
+}
@@ -0,0 +1,287 @@
+// Unrolled linked list: the same operations as LinkedListWithIterator,
+// but every node holds a small array of entries (64 by default) instead of one.
+// Iterating reads neighbouring array slots instead of following one pointer
+// per entry, and the per-entry overhead of a Node object disappears.
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import metrics.Counter;
+import metrics.Metrics;
+
+public class UnrolledLinkedList<T> implements Iterable<T> {
+	public static final int DEFAULT_CHUNK_CAPACITY = 64;
+
+	private static class Chunk {
+		private final Object [] entries;
+		private int count;       // entries[0..count-1] are used
+		private Chunk next;
+
+		private Chunk(int capacity) {
+			entries = new Object[capacity];
+		} // end constructor
+	} // end Chunk
+
+	private final int capacity;  // entries per chunk
+	private Chunk head;
+	private Chunk tail;
+	private int size;
+
+	private final Counter count = Metrics.newCounter();  // debug counter of the number of operations
+
+	public UnrolledLinkedList() {
+		this(DEFAULT_CHUNK_CAPACITY);
+	} // end default constructor
+
+	public UnrolledLinkedList(int chunkCapacity) {
+		if (chunkCapacity < 2)
+			throw new IllegalArgumentException("A chunk must hold at least 2 entries");
+		capacity = chunkCapacity;
+		clear();
+	} // end constructor
+
+	public void clear() {
+		head = null;
+		tail = null;
+		size = 0;
+		count.reset();
+	} // end clear
+
+	public int getCount() {
+		return (int) count.sum();
+	}
+
+	public void resetCount() {
+		count.reset();
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	} // end isEmpty
+
+	public int getSize() {
+		return size;
+	} // end getSize
+
+	// adds to the end
+	public void add(T newEntry) {
+		if (tail == null || tail.count == capacity) {
+			Chunk newChunk = new Chunk(capacity);
+			if (tail == null)
+				head = newChunk;
+			else
+				tail.next = newChunk;
+			tail = newChunk;
+		}
+		tail.entries[tail.count++] = newEntry;
+		size++;
+	} // end add
+
+	// adds at a specified position; a full chunk is split in two halves first
+	public void add(int newPosition, T newEntry) {
+		if ((newPosition < 0) || (newPosition > size))
+			throw new IndexOutOfBoundsException("Illegal position given to add operation.");
+		if (newPosition == size) {
+			add(newEntry);
+			return;
+		}
+
+		Chunk chunk = head;
+		int index = newPosition;
+		while (index >= chunk.count) {     // position < size, so this stops at a chunk
+			index -= chunk.count;
+			chunk = chunk.next;
+			count.increment();
+		}
+
+		if (chunk.count == capacity) {
+			Chunk newChunk = new Chunk(capacity);
+			int half = capacity / 2;
+			System.arraycopy(chunk.entries, half, newChunk.entries, 0, capacity - half);
+			Arrays.fill(chunk.entries, half, capacity, null);
+			newChunk.count = capacity - half;
+			chunk.count = half;
+			newChunk.next = chunk.next;
+			chunk.next = newChunk;
+			if (tail == chunk)
+				tail = newChunk;
+			if (index > half) {
+				index -= half;
+				chunk = newChunk;
+			}
+		}
+
+		System.arraycopy(chunk.entries, index, chunk.entries, index + 1, chunk.count - index);
+		chunk.entries[index] = newEntry;
+		chunk.count++;
+		size++;
+	} // end add
+
+	// removes the entry at a position; a chunk that gets less than half full
+	// is merged with the next one when they fit together
+	@SuppressWarnings("unchecked")
+	public T remove(int givenPosition) {
+		if ((givenPosition < 0) || (givenPosition >= size))
+			throw new IndexOutOfBoundsException("Illegal position given to remove operation.");
+
+		Chunk previous = null;
+		Chunk chunk = head;
+		int index = givenPosition;
+		while (index >= chunk.count) {
+			index -= chunk.count;
+			previous = chunk;
+			chunk = chunk.next;
+			count.increment();
+		}
+
+		T result = (T) chunk.entries[index];
+		System.arraycopy(chunk.entries, index + 1, chunk.entries, index, chunk.count - index - 1);
+		chunk.entries[--chunk.count] = null;
+		size--;
+
+		if (chunk.count == 0)               // only possible when the next chunk was too full to merge
+			unlink(previous, chunk);
+		else if (chunk.count < capacity / 2 && chunk.next != null
+				&& chunk.count + chunk.next.count <= capacity) {
+			Chunk nextChunk = chunk.next;
+			System.arraycopy(nextChunk.entries, 0, chunk.entries, chunk.count, nextChunk.count);
+			chunk.count += nextChunk.count;
+			unlink(chunk, nextChunk);
+		}
+		return result;
+	} // end remove
+
+	@SuppressWarnings("unchecked")
+	public T get(int givenPosition) {
+		if ((givenPosition < 0) || (givenPosition >= size))
+			throw new IndexOutOfBoundsException("Illegal position given to getEntry operation.");
+
+		Chunk chunk = head;
+		int index = givenPosition;
+		while (index >= chunk.count) {      // skips a whole chunk per step
+			index -= chunk.count;
+			chunk = chunk.next;
+			count.increment();
+		}
+		return (T) chunk.entries[index];
+	} // end get
+
+	public Iterator<T> iterator() {
+		return new IteratorForUnrolledList();
+	} // end iterator
+
+	// Takes chunk (which follows previous, or is head if previous is null) out of the chain
+	private void unlink(Chunk previous, Chunk chunk) {
+		if (previous == null)
+			head = chunk.next;
+		else
+			previous.next = chunk.next;
+		if (tail == chunk)
+			tail = previous;
+	} // end unlink
+
+//==================================
+
+	private class IteratorForUnrolledList implements Iterator<T> {
+		private Chunk chunk = head;  // chunk holding the next entry
+		private int index;           // position of the next entry in chunk
+
+		public boolean hasNext() {
+			return chunk != null && index < chunk.count;
+		} // end hasNext
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (!hasNext())
+				throw new NoSuchElementException("Illegal call to next(); " +
+						"iterator is after end of list.");
+			T result = (T) chunk.entries[index++];
+			if (index == chunk.count) {      // move on to the next chunk
+				chunk = chunk.next;
+				index = 0;
+			}
+
+			/*******************************/
+			count.increment();					//counting operations
+			/*******************************/
+
+			return result;
+		} // end next
+
+		public void remove() {
+			throw new UnsupportedOperationException("remove() is not " +
+					"supported by this iterator");
+		} // end remove
+	} // end IteratorForUnrolledList
+
+	// Bytes used by the structure itself (not by the entries), assuming
+	// 12-byte object headers, 4-byte references and 8-byte alignment.
+	public long structureBytes() {
+		long chunks = 0;
+		for (Chunk c = head; c != null; c = c.next)
+			chunks++;
+		long chunkBytes = align(12 + 4 + 4 + 4);             // header, entries, count, next
+		long arrayBytes = align(16 + 4L * capacity);         // header with length, slots
+		return chunks * (chunkBytes + arrayBytes);
+	} // end structureBytes
+
+	private static long align(long bytes) {
+		return (bytes + 7) / 8 * 8;
+	}
+
+	// Iteration time and memory of LinkedListWithIterator and UnrolledLinkedList
+	// holding the same Integer objects.
+	// Usage: java UnrolledLinkedList [number of entries]
+	// (run with -Dmetrics=off for timings without the operation counters)
+	public static void main(String [] args) {
+		int n = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+		Integer [] values = new Integer[n];
+		for (int i = 0; i < n; i++)
+			values[i] = Integer.valueOf(i);
+
+		LinkedListWithIterator<Integer> linked = new LinkedListWithIterator<Integer>();
+		UnrolledLinkedList<Integer> unrolled = new UnrolledLinkedList<Integer>();
+		for (int i = 0; i < n; i++) {
+			linked.add(values[i]);
+			unrolled.add(values[i]);
+		}
+
+		long linkedBytes = n * align(12 + 4 + 4);             // one Node per entry
+		System.out.println(n + " entries");
+		System.out.printf("LinkedListWithIterator: %,d bytes of nodes (%.1f per entry)%n",
+				linkedBytes, (double) linkedBytes / n);
+		System.out.printf("UnrolledLinkedList:     %,d bytes of chunks (%.1f per entry)%n",
+				unrolled.structureBytes(), (double) unrolled.structureBytes() / n);
+
+		int rounds = 20;
+		long linkedTime = 0, unrolledTime = 0, checksum = 0;
+		for (int r = 0; r < rounds; r++) {        // the first rounds warm up the JIT
+			long start = System.nanoTime();
+			for (Integer v : linked)
+				checksum += v;
+			long middle = System.nanoTime();
+			for (Integer v : unrolled)
+				checksum += v;
+			long end = System.nanoTime();
+			if (r >= rounds / 2) {
+				linkedTime += middle - start;
+				unrolledTime += end - middle;
+			}
+		}
+		System.out.printf("Iteration: LinkedListWithIterator %.2f ms, UnrolledLinkedList %.2f ms (checksum %d)%n",
+				linkedTime / 1e6 / (rounds - rounds / 2), unrolledTime / 1e6 / (rounds - rounds / 2), checksum);
+
+		int gets = 1000;
+		linked.resetCount();
+		unrolled.resetCount();
+		Random R = new Random(1);
+		for (int i = 0; i < gets; i++) {
+			int position = R.nextInt(n);
+			checksum += linked.get(position) + unrolled.get(position);
+		}
+		System.out.println(gets + " random get() calls: " + linked.getCount() + " node steps, "
+				+ unrolled.getCount() + " chunk steps");
+	}
+} // end UnrolledLinkedList
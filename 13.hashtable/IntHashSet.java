@@ -0,0 +1,161 @@
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of ints without boxing: a hash table with open addressing (linear
+ * probing) over one int array, kept at most half full.
+ * An empty slot holds 0, so the value 0 itself is remembered in a separate flag.
+ * A HashSet<Integer> needs an Integer object and a HashMap node for every
+ * value (about 48 bytes); this set needs 8 to 16 bytes per value.
+ */
+public class IntHashSet {
+    private int [] table;
+    private int size;          // values in table (0 not included)
+    private boolean hasZero;
+    private int mask;          // table.length - 1, a power of 2 minus 1
+
+    public IntHashSet() {
+        this(8);
+    }
+
+    public IntHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        table = new int [capacity];
+        mask = capacity - 1;
+    }
+
+    public static IntHashSet of(int [] values) {
+        IntHashSet set = new IntHashSet(values.length);
+        for (int v : values)
+            set.add(v);
+        return set;
+    }
+
+    public IntHashSet copy() {
+        IntHashSet set = new IntHashSet(0);
+        set.table = table.clone();
+        set.size = size;
+        set.hasZero = hasZero;
+        set.mask = mask;
+        return set;
+    }
+
+    // Returns true if value was not in the set yet
+    public boolean add(int value) {
+        if (value == 0) {
+            boolean added = !hasZero;
+            hasZero = true;
+            return added;
+        }
+        int slot = slot(value);
+        if (table[slot] == value)
+            return false;
+        table[slot] = value;
+        if (++size > table.length / 2)
+            grow();
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value == 0)
+            return hasZero;
+        return table[slot(value)] == value;
+    }
+
+    // Returns true if value was in the set
+    public boolean remove(int value) {
+        if (value == 0) {
+            boolean removed = hasZero;
+            hasZero = false;
+            return removed;
+        }
+        int hole = slot(value);
+        if (table[hole] != value)
+            return false;
+        table[hole] = 0;
+        size--;
+        // move back the values after the hole that could not be found otherwise
+        for (int slot = (hole + 1) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int home = hash(table[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                table[hole] = table[slot];
+                table[slot] = 0;
+                hole = slot;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return size + (hasZero ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Calls action with every value, in no particular order
+    public void forEach(IntConsumer action) {
+        if (hasZero)
+            action.accept(0);
+        for (int v : table)
+            if (v != 0)
+                action.accept(v);
+    }
+
+    // The values, sorted
+    public int [] toArray() {
+        int [] values = new int [size()];
+        int n = 0;
+        if (hasZero)
+            values[n++] = 0;
+        for (int v : table)
+            if (v != 0)
+                values[n++] = v;
+        Arrays.sort(values);
+        return values;
+    }
+
+    // Bytes used by the table (with a 16-byte array header)
+    public long sizeInBytes() {
+        return 16 + 4L * table.length;
+    }
+
+    public boolean equals(Object o) {
+        if (!(o instanceof IntHashSet))
+            return false;
+        IntHashSet other = (IntHashSet) o;
+        return Arrays.equals(toArray(), other.toArray());
+    }
+
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    // Slot holding value, or the empty slot where it would go
+    private int slot(int value) {
+        int slot = hash(value) & mask;
+        while (table[slot] != 0 && table[slot] != value)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void grow() {
+        int [] old = table;
+        table = new int [old.length * 2];
+        mask = table.length - 1;
+        for (int v : old)
+            if (v != 0)
+                table[slot(v)] = v;
+    }
+}
@@ -0,0 +1,111 @@
+
+import java.util.Random;
+import java.util.Set;
+
+import metrics.Metrics;
+
+/**
+ * The operations of SetOperations on int [] inputs, with IntHashSet instead
+ * of HashSet<Integer>: no value is boxed, and the sets take several times
+ * less memory. The results contain the same values as SetOperations'.
+ */
+public class IntSetOperations {
+    private IntHashSet setA;
+    private IntHashSet setB;
+
+    public IntSetOperations(int [] arrayA, int [] arrayB) {
+        this.setA = IntHashSet.of(arrayA);
+        this.setB = IntHashSet.of(arrayB);
+    }
+
+    public IntHashSet intersection() {
+        IntHashSet smaller = (setA.size() <= setB.size()) ? setA : setB;
+        IntHashSet larger = (smaller == setA) ? setB : setA;
+        IntHashSet intersectSet = new IntHashSet(smaller.size());
+        smaller.forEach(v -> {
+            if (larger.contains(v))
+                intersectSet.add(v);
+        });
+        return intersectSet;
+    }
+
+    public IntHashSet union() {
+        IntHashSet unionSet = setA.copy();
+        setB.forEach(unionSet::add);
+        return unionSet;
+    }
+
+    public IntHashSet difference() {
+        IntHashSet differenceSet = setA.copy();
+        setB.forEach(differenceSet::remove);
+        return differenceSet;
+    }
+
+    public static IntHashSet intersection(int [] a, int [] b) {
+        return new IntSetOperations(a, b).intersection();
+    }
+
+    public static IntHashSet union(int [] a, int [] b) {
+        return new IntSetOperations(a, b).union();
+    }
+
+    public static IntHashSet difference(int [] a, int [] b) {
+        return new IntSetOperations(a, b).difference();
+    }
+
+    private static boolean sameValues(IntHashSet ints, Set<Integer> integers) {
+        if (ints.size() != integers.size())
+            return false;
+        for (Integer v : integers)
+            if (!ints.contains(v))
+                return false;
+        return true;
+    }
+
+    public static void main(String [] args) {
+        int [] a = {1,2,3,4};
+        int [] b = {2,4,5,6};
+
+        IntSetOperations sop = new IntSetOperations(a, b);
+        System.out.println("Set A: " + sop.setA);
+        System.out.println("Set B: " + sop.setB);
+        System.out.println("Intersection AB: " + sop.intersection());
+        System.out.println("Union A U B: " + sop.union());
+        System.out.println("Difference A - B: " + sop.difference());
+
+        // the same operations on a million values each, with both classes
+        int n = 1000000;
+        Random R = new Random(1);
+        int [] bigA = new int [n];
+        int [] bigB = new int [n];
+        Integer [] boxedA = new Integer [n];
+        Integer [] boxedB = new Integer [n];
+        for (int i = 0; i < n; i++) {
+            bigA[i] = R.nextInt(2 * n) - n;
+            bigB[i] = R.nextInt(2 * n) - n;
+            boxedA[i] = bigA[i];
+            boxedB[i] = bigB[i];
+        }
+
+        long before = Metrics.allocatedBytes();
+        long start = System.nanoTime();
+        SetOperations boxed = new SetOperations(boxedA, boxedB);
+        Set<Integer> i1 = boxed.intersection(), u1 = boxed.union(), d1 = boxed.difference();
+        long boxedTime = System.nanoTime() - start;
+        long boxedBytes = Metrics.allocatedBytes() - before;
+
+        before = Metrics.allocatedBytes();
+        start = System.nanoTime();
+        IntSetOperations ints = new IntSetOperations(bigA, bigB);
+        IntHashSet i2 = ints.intersection(), u2 = ints.union(), d2 = ints.difference();
+        long intTime = System.nanoTime() - start;
+        long intBytes = Metrics.allocatedBytes() - before;
+
+        System.out.println("\n" + n + " random values in each set:");
+        System.out.printf("SetOperations:    %,d bytes allocated, %d ms%n", boxedBytes, boxedTime / 1000000);
+        System.out.printf("IntSetOperations: %,d bytes allocated, %d ms%n", intBytes, intTime / 1000000);
+        System.out.printf("Set A as an IntHashSet: %,d bytes (%.1f per value)%n",
+                ints.setA.sizeInBytes(), (double) ints.setA.sizeInBytes() / ints.setA.size());
+        System.out.println("Same results: " + (sameValues(i2, i1) && sameValues(u2, u1) && sameValues(d2, d1)));
+    }
+}
@@ -18,13 +18,22 @@ package recursion;
 import java.util.*;
 import java.io.*;
 
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.Metrics;
+
 public class BinarySearch {
 	private Integer [] data;   //array to search in
 	
-	private int bicomps, 		//number of comparisons in iterative version of binary search
-				brcomps, 		//number of comparisons in recursive version of binary search
-				scomps, 		//number of comparisons in sequential search		
-				reps, 
+	private final Counter bicomps = Metrics.newCounter(), 	//number of comparisons in iterative version of binary search
+				brcomps = Metrics.newCounter(), 	//number of comparisons in recursive version of binary search
+				scomps = Metrics.newCounter(); 		//number of comparisons in sequential search
+	
+	private static final Histogram biTime = Metrics.histogram("recursion.BinarySearch.binarySearchIterative"),
+				brTime = Metrics.histogram("recursion.BinarySearch.binarySearchRecursive"),
+				sTime = Metrics.histogram("recursion.BinarySearch.seqSearchRecursive");
+	
+	private int reps, 
 				bifound, 		//counts number of times item found by binary iterative search
 				brfound, 		// - || -  by binary recursive search
 				sfound;			// - || -  by sequential search
@@ -33,7 +42,6 @@ public class BinarySearch {
     
 	public BinarySearch(Integer [] data, int reps) 	{
 		this.data = data;
-		bicomps = 0; brcomps = 0; scomps = 0; // initialize total comps to 0
 		this.reps = reps;  // how many searches will we try?
 		bifound = 0; brfound = 0; sfound = 0;		
 	}
@@ -43,31 +51,37 @@ public class BinarySearch {
 		Integer item;
 		for (int iter = 0; iter < reps; iter++)		{
 			item = Integer.valueOf((int) (Math.random() * 1000));
+			long start = Metrics.start();
 			loc = binarySearchIterative(data, item);
+			biTime.stop(start);
 			if (loc >= 0)
 				bifound++;
+			start = Metrics.start();
 			loc = binarySearchRecursive(data, item, 0, data.length-1);
+			brTime.stop(start);
 			if (loc >= 0)
 				brfound++;
+			start = Metrics.start();
 			loc = seqSearchRecursive(data, item, 0);
+			sTime.stop(start);
 			if (loc >= 0)
 				sfound++;
 		}
 		
-		double biave = (double)bicomps/reps;
-		double brave = (double)brcomps/reps;
-		double save = (double)scomps/reps;
+		double biave = (double)bicomps.sum()/reps;
+		double brave = (double)brcomps.sum()/reps;
+		double save = (double)scomps.sum()/reps;
 
 		System.out.println("Iterative Binary Search: ");
-		System.out.println("    Total comparisonss: " + bicomps);
+		System.out.println("    Total comparisonss: " + bicomps.sum());
 		System.out.println("    Ave. comparisonss: " + biave);
 		System.out.println("    Found: " + bifound + " out of " + reps);
 		System.out.println("Recursive Binary Search: ");
-		System.out.println("    Total comparisonss: " + brcomps);
+		System.out.println("    Total comparisonss: " + brcomps.sum());
 		System.out.println("    Ave. comparisonss: " + brave);
 		System.out.println("    Found: " + brfound + " out of " + reps);
 		System.out.println("Recursive Sequential Search: ");
-		System.out.println("    Total comparisonss: " + scomps);
+		System.out.println("    Total comparisonss: " + scomps.sum());
 		System.out.println("    Ave. comparisonss: " + save);
 		System.out.println("    Found: " + sfound + " out of " + reps);
 		System.out.println();
@@ -82,6 +96,8 @@ public class BinarySearch {
 				System.out.println("Recursively " + item + " is not present ");
 			System.out.println();			
 		}
+		
+		Metrics.report(System.out);
 	}	
 
 	// Iterative Binary Search (with which you should already be familiar)
@@ -89,7 +105,7 @@ public class BinarySearch {
 		int low = 0;
 		int high = a.length-1;
 		while (low <= high) {
-			bicomps++;  
+			bicomps.increment();  
 			int mid = (low + high)/2;
 			T midItem = a[mid];
 			int res = midItem.compareTo(obj);
@@ -106,7 +122,7 @@ public class BinarySearch {
 	public <T extends Comparable<T>> int binarySearchRecursive (T [] a, T obj, int low, int high) 	{
 		int ans;
 		if (low <= high) {  // if (low > high) the BASE CASE is reached		
-			brcomps++;  // count one comparison for each recursive CALL
+			brcomps.increment();  // count one comparison for each recursive CALL
 
 			int mid = (low + high)/2;
 			T midItem = a[mid];
@@ -172,7 +188,7 @@ public class BinarySearch {
 	public <T extends Comparable<T>> int seqSearchRecursive(T [] a, T key, int index)	{
 		if (index >= a.length)
 			return -1;
-		scomps++;
+		scomps.increment();
 		if (a[index].compareTo(key) == 0)
 			return index;
 		else return seqSearchRecursive(a, key, index+1);
@@ -0,0 +1,75 @@
+package recursion;
+
+import metrics.Metrics;
+
+/**
+ * A free list of Node objects, so that programs that build chains and throw
+ * them away again (e.g. SequentialSearchLinkedList.loadData in a loop)
+ * can reuse the old nodes instead of allocating new ones.
+ * Released nodes are chained through their next field.
+ * A pool is not thread-safe: use one pool per thread.
+ */
+public class NodePool<T> {
+	private Node<T> free;   // first free node
+	private int size;       // number of free nodes
+
+	// Returns a node holding data, reusing a free one if possible
+	public Node<T> obtain(T data) {
+		Node<T> node = free;
+		if (node == null)
+			return new Node<T>(data);
+		free = node.next;
+		size--;
+		node.data = data;
+		node.next = null;
+		return node;
+	}
+
+	// Gives back a whole chain of nodes that is no longer used.
+	// The data are dropped so that the pool does not keep them alive.
+	public void releaseChain(Node<T> head) {
+		while (head != null) {
+			Node<T> next = head.next;
+			head.data = null;
+			head.next = free;
+			free = head;
+			size++;
+			head = next;
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	// Builds and discards many lists with SequentialSearchLinkedList.loadData,
+	// without and with a pool, and reports the bytes allocated
+	public static void main(String [] args) {
+		int rounds = 200;
+		int num = 100000;
+		long found = 0;
+
+		long before = Metrics.allocatedBytes();
+		long start = System.nanoTime();
+		for (int r = 0; r < rounds; r++) {
+			Node<Integer> head = SequentialSearchLinkedList.loadData(num);
+			found += SequentialSearchLinkedList.linkedSearch(head, 199);
+		}
+		long bytes = Metrics.allocatedBytes() - before;
+		System.out.printf("Without pool: %,d bytes allocated (%.1f per node) in %d ms%n",
+				bytes, (double) bytes / ((long) rounds * num), (System.nanoTime() - start) / 1000000);
+
+		NodePool<Integer> pool = new NodePool<Integer>();
+		before = Metrics.allocatedBytes();
+		start = System.nanoTime();
+		for (int r = 0; r < rounds; r++) {
+			Node<Integer> head = SequentialSearchLinkedList.loadData(num, pool);
+			found += SequentialSearchLinkedList.linkedSearch(head, 199);
+			pool.releaseChain(head);
+		}
+		bytes = Metrics.allocatedBytes() - before;
+		System.out.printf("With pool:    %,d bytes allocated (%.1f per node) in %d ms%n",
+				bytes, (double) bytes / ((long) rounds * num), (System.nanoTime() - start) / 1000000);
+		System.out.println("(sum of search results: " + found + ")");
+	}
+}
@@ -12,17 +12,24 @@ public class SequentialSearchLinkedList {
 	
 	//creates a linked list with num nodes of random integers 
 	public static Node<Integer> loadData(int num)	{
+		return loadData(num, null);
+	}
+
+	// same, but takes the nodes from pool (if not null), so that a program that
+	// loads many lists can give each one back with pool.releaseChain(head)
+	public static Node<Integer> loadData(int num, NodePool<Integer> pool)	{
 		Node<Integer> curr = null;
 		Node<Integer> head = null;
 		for (int i = 0; i < num; i++)	{
 			Integer item = Integer.valueOf((int) (Math.random() * 200));
+			Node<Integer> node = (pool == null) ? new Node<Integer>(item) : pool.obtain(item);
 			// Special case for empty list -- watch for these cases.
 			if (head == null) {
-				head = new Node<Integer>(item);
+				head = node;
 				curr = head;
 			}
 			else {
-				curr.next = new Node<Integer>(item);
+				curr.next = node;
 				curr = curr.next;
 			}
 		}
@@ -0,0 +1,5 @@
+#!/bin/sh
+# Compiles the demos of this directory together with the metrics package
+# they share (in ../instrumentation). Then run them from here, e.g.
+#    java sorting.AdvancedSorting
+cd "$(dirname "$0")" && javac -sourcepath ../instrumentation -d . sorting/*.java
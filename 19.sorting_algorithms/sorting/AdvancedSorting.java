@@ -2,6 +2,10 @@ package sorting;
 
 import java.util.Arrays;
 
+import metrics.CallCounter;
+import metrics.Histogram;
+import metrics.Metrics;
+
 /**
  * Demo of MergeSort and QuickSort
  * Simplified for readability 
@@ -11,35 +15,45 @@ import java.util.Arrays;
  */
 public class AdvancedSorting {
 	
-	public static int comparisonsCount = 0;
+	// comparisonsCount.last(): comparisons of the last sort on this thread;
+	// the registered counter adds up all sorts of the process.
+	// Each sort counts into its own Tally, passed down to the helpers.
+	public static final CallCounter comparisonsCount = Metrics.callCounter("sorting.AdvancedSorting.comparisons");
+	private static final Histogram mergeSortTime = Metrics.histogram("sorting.AdvancedSorting.mergeSort");
+	private static final Histogram quickSortTime = Metrics.histogram("sorting.AdvancedSorting.quickSort");
+	private static final Histogram randQuickSortTime = Metrics.histogram("sorting.AdvancedSorting.randQuickSort");
+
 	/**
 	 * Merge sort algorithm demo
 	 * @param a -- integer array to be sorted
 	 * Sorting is not in-place - uses additional tempArray to store results of merge
 	 */
 	public static void mergeSort(int[] a) {
-		comparisonsCount = 0;
+		long start = Metrics.start();
 		mergeSort(a, 0, a.length - 1);
+		mergeSortTime.stop(start);
 	} // end mergeSort
 
 	public static void mergeSort(int[] a, int first, int last) {
+	  CallCounter.Tally tally = comparisonsCount.begin();
 	  int[] tempArray = new int[a.length];
-	  mergeSort(a, tempArray, first, last);
+	  mergeSort(a, tempArray, first, last, tally);
+	  comparisonsCount.end(tally);
 	} // end mergeSort
 	
-	private static void mergeSort(int[] a, int[] tempArray, int first, int last) {
+	private static void mergeSort(int[] a, int[] tempArray, int first, int last, CallCounter.Tally tally) {
 	   if (first < last)  {  // sort each half there is an interval to be sorted
 		   int mid = (first + last)/2;// index of midpoint
-		   mergeSort(a, tempArray, first, mid);  // sort left half array[first..mid]
-		   mergeSort(a, tempArray, mid + 1, last); // sort right half array[mid+1..last]
+		   mergeSort(a, tempArray, first, mid, tally);  // sort left half array[first..mid]
+		   mergeSort(a, tempArray, mid + 1, last, tally); // sort right half array[mid+1..last]
 
 		   if (a[mid]>a[mid + 1])      //See Chapter 9
-	     	 	merge(a, tempArray, first, mid, last); // merge the two halves
+	     	 	merge(a, tempArray, first, mid, last, tally); // merge the two halves
 		   //else skip merge step: max of the left < min of the right
 	   }  // end if
 	}  // end mergeSort
 	
-	private static void merge(int[] a, int[] tempArray, int first, int mid, int last) {
+	private static void merge(int[] a, int[] tempArray, int first, int mid, int last, CallCounter.Tally tally) {
 		// Two adjacent subarrays are a[first..mid] and a[mid+1..last].
 		// set the reading pointers to the first item in the corresponding interval
 		int i = first;		
@@ -50,7 +64,7 @@ public class AdvancedSorting {
 		int index = first; // next available location in tempArray
 		
 		while (i <= mid && j <=last) { 		
-			comparisonsCount++;
+			tally.increment();
 	      if (a[i] <= a[j]) {  
 	      	tempArray[index] = a[i];
 	        i++;
@@ -86,22 +100,29 @@ public class AdvancedSorting {
 	 */
 	public static void quickSort(int[] a) {
 		int n = a.length;
-		comparisonsCount = 0;
+		long start = Metrics.start();
 		quickSort(a, 0, n-1);
+		quickSortTime.stop(start);
 	} // end quickSort
 	
 	/** Sorts an array into ascending order. Uses quick sort with
 	 *  first element selected as a pivot	 *  
 	 */
 	public static void quickSort(int[] a, int first, int last)	{
+		CallCounter.Tally tally = comparisonsCount.begin();
+		quickSort(a, first, last, tally);
+		comparisonsCount.end(tally);
+	} // end quickSort
+
+	private static void quickSort(int[] a, int first, int last, CallCounter.Tally tally)	{
 		if (first >= last)
 			return;
 	    // create the partition: Smaller | Pivot | Larger
-	    int pivotPosition = partition(a, first, last);
+	    int pivotPosition = partition(a, first, last, tally);
 	    
 	    // recursively sort subarrays Smaller and Larger
-	    quickSort(a, first, pivotPosition - 1);
-	    quickSort(a, pivotPosition + 1, last);	  
+	    quickSort(a, first, pivotPosition - 1, tally);
+	    quickSort(a, pivotPosition + 1, last, tally);	  
 	} // end quickSort
 
 	// 
@@ -117,8 +138,9 @@ public class AdvancedSorting {
 	 *                first >= 0 and < a.length 
 	 *  @param last   the integer index of the last array element; 
 	 *                last - first >= 3; last < a.length
+	 *  @param tally  counts the comparisons
 	 *  @return the index of the pivot */
-	private static int partition(int[] a, int first, int last) {
+	private static int partition(int[] a, int first, int last, CallCounter.Tally tally) {
 	  int pivot = a[first];	
 	  
 	  // distribute elements of a into  subarrays Smaller = a[first..endSmaller]
@@ -130,7 +152,7 @@ public class AdvancedSorting {
 	  for (int i=first+1; i <= last; i++) {	  
 		  // starting at beginning of array, leave elements that are < pivot;
 		  // keep the divider between small and large in variable k
-		  comparisonsCount++;
+		  tally.increment();
 		  if (a[i] <= pivot)  { // k is the index of the last in smaller part
 			  k++;  // the smaller partition getting bigger
 			  swap (a, i, k);	    	
@@ -144,14 +166,21 @@ public class AdvancedSorting {
 	
 	public static void randQuickSort(int[] a) {
 		int n = a.length;
-		comparisonsCount = 0;
+		long start = Metrics.start();
 		randQuickSort(a, 0, n-1);
+		randQuickSortTime.stop(start);
 	} // end quickSort
 	
 	/** Sorts an array into ascending order. Uses quick sort with
 	 *  first element selected as a pivot	 *  
 	 */
 	public static void randQuickSort(int[] a, int first, int last)	{
+		CallCounter.Tally tally = comparisonsCount.begin();
+		randQuickSort(a, first, last, tally);
+		comparisonsCount.end(tally);
+	} // end quickSort
+
+	private static void randQuickSort(int[] a, int first, int last, CallCounter.Tally tally)	{
 		if (first >= last)
 			return;
 		
@@ -160,11 +189,11 @@ public class AdvancedSorting {
 		swap(a, first, randPos);
 		
 	    // create the partition: Smaller | Pivot | Larger
-	    int pivotPosition = partition(a, first, last);
+	    int pivotPosition = partition(a, first, last, tally);
 	    
 	    // recursively sort subarrays Smaller and Larger
-	    randQuickSort(a, first, pivotPosition - 1);
-	    randQuickSort(a, pivotPosition + 1, last);	  
+	    randQuickSort(a, first, pivotPosition - 1, tally);
+	    randQuickSort(a, pivotPosition + 1, last, tally);	  
 	} // end quickSort
   	/** Swaps the array entries a[i] and a[j].
   	@param a  an array of integers
@@ -182,26 +211,27 @@ public class AdvancedSorting {
 		System.out.println("Input array of size  " + n + ": "+ DataGenerator.arrToString(a));
 		
 		mergeSort(a);
-		System.out.println("Sorted with merge sort with total " + comparisonsCount +" comparisons.");
+		System.out.println("Sorted with merge sort with total " + comparisonsCount.last() +" comparisons.");
 		System.out.println("Output array: " + DataGenerator.arrToString(a));
 		
 		a = DataGenerator.getRandIntArray(n);
 		System.out.println("\nInput array of size  " + n + ": "+ DataGenerator.arrToString(a));
 		
 		quickSort(a);
-		System.out.println("Sorted with quick sort (first is pivot) with total " + comparisonsCount +" comparisons.");
+		System.out.println("Sorted with quick sort (first is pivot) with total " + comparisonsCount.last() +" comparisons.");
 		System.out.println("Output array: " + DataGenerator.arrToString(a));		
 		
 		System.out.println("\nInput array (already sorted) of size  " + n + ": "+ DataGenerator.arrToString(a));
 		quickSort(a);
-		System.out.println("Sorted with quick sort (first is pivot) with total " + comparisonsCount +" comparisons.");
+		System.out.println("Sorted with quick sort (first is pivot) with total " + comparisonsCount.last() +" comparisons.");
 		System.out.println("Output array: " + DataGenerator.arrToString(a));
 		
 		System.out.println("\nInput array (already sorted) of size  " + n + ": "+ DataGenerator.arrToString(a));
 		randQuickSort(a);
-		System.out.println("Sorted with RANDOMIZED quick sort  with total " + comparisonsCount +" comparisons.");
+		System.out.println("Sorted with RANDOMIZED quick sort  with total " + comparisonsCount.last() +" comparisons.");
 		System.out.println("Output array: " + DataGenerator.arrToString(a));
 		
-		
+		System.out.println();
+		Metrics.report(System.out);
 	}
 }
@@ -4,8 +4,18 @@
 */
 package sorting;
 
+import metrics.CallCounter;
+import metrics.Histogram;
+import metrics.Metrics;
+
 public class SimpleSorting {
-	public static int comparisons = 0;
+	// comparisons.last(): comparisons of the last sort on this thread;
+	// the registered counter adds up all sorts of the process.
+	// Each sort counts into its own Tally, passed down to the helpers.
+	public static final CallCounter comparisons = Metrics.callCounter("sorting.SimpleSorting.comparisons");
+	private static final Histogram selectionSortTime = Metrics.histogram("sorting.SimpleSorting.selectionSort");
+	private static final Histogram insertionSortTime = Metrics.histogram("sorting.SimpleSorting.insertionSort");
+	private static final Histogram shellSortTime = Metrics.histogram("sorting.SimpleSorting.shellSort");
 	
 	/** Sorts the first n objects in an array into ascending order.
     @param a  an array of integers (for simplicity of the demo)
@@ -14,12 +24,15 @@ public class SimpleSorting {
 
 	public static void selectionSort(int[] a) {
 		int n = a.length;
-		comparisons = 0;
+		CallCounter.Tally tally = comparisons.begin();
+		long start = Metrics.start();
 		for (int index = 0; index < a.length - 1; index++)  {
-			int indexOfNextSmallest = getIndexOfSmallest(a, index, n - 1);
+			int indexOfNextSmallest = getIndexOfSmallest(a, index, n - 1, tally);
 			swap(a, index, indexOfNextSmallest);
 			// Maintaining Invariant: a[0] <= a[1] <= . . . <= a[index] <= all other a[i]
 		} // end for
+		selectionSortTime.stop(start);
+		comparisons.end(tally);
 	} // end selectionSort
 
 	/** Finds the index of the smallest value in a portion of an array.
@@ -28,12 +41,13 @@ public class SimpleSorting {
                   the first array entry to consider
     @param last   an integer >= first and < a.length that is the index 
                   of the last array entry to consider
+    @param tally  counts the comparisons
     @return the index of the smallest value among a[first], a[first + 1], . . . , a[last] */
-	private static int getIndexOfSmallest(int[] a, int first, int last) {
+	private static int getIndexOfSmallest(int[] a, int first, int last, CallCounter.Tally tally) {
 		int min = a[first];
 		int indexOfMin = first;
 		for (int index = first + 1; index <= last; index++) {
-			comparisons++;
+			tally.increment();
 			if (a[index]<min) {
 				min = a[index];
 				indexOfMin = index;
@@ -46,11 +60,13 @@ public class SimpleSorting {
 
 	 public static void insertionSort(int [] a) {
 		 int n = a.length;
-		 comparisons = 0;
+		 long start = Metrics.start();
 		 insertionSort(a, 0, n - 1);
+		 insertionSortTime.stop(start);
 	 } // end insertionSort
 
 	 public static void insertionSort(int[] a, int first, int last) {
+		 CallCounter.Tally tally = comparisons.begin();
 		 int unsortedIndex;  // each element of a becomes the first of unsorted in turn
 	
 		 for (unsortedIndex = first + 1; unsortedIndex <= last; unsortedIndex++) {   
@@ -58,16 +74,17 @@ public class SimpleSorting {
 	
 			 int unsorted = a[unsortedIndex];
 		
-			 insertInOrder(unsorted, a, first, unsortedIndex - 1);
+			 insertInOrder(unsorted, a, first, unsortedIndex - 1, tally);
 		 } // end for
+		 comparisons.end(tally);
 	 } // end insertionSort
 
-	 private static void insertInOrder(int element, int[] a, int begin, int end) {
+	 private static void insertInOrder(int element, int[] a, int begin, int end, CallCounter.Tally tally) {
 		 int index;	
 		 // searching for the correct placve for element in the sorted part
 		 //shifting values to the right
 		 for (index = end; (index >= begin) && (element < a[index]); index--)	{
-			 comparisons ++;
+			 tally.increment();
 			 a[index + 1] = a[index]; // make room
 		 } // end for	
 		 
@@ -89,7 +106,8 @@ public class SimpleSorting {
 		int first = 0;
 		int last = n-1;
 		
-		comparisons = 0;
+		CallCounter.Tally tally = comparisons.begin();
+		long start = Metrics.start();
 		
 		int gap = n / 2;	// initial gap is n/2
 		if (gap % 2 == 0)
@@ -101,16 +119,18 @@ public class SimpleSorting {
 			// for each position inside the gap
 			//do insertion sort on the corresponding subarray 
 			for (int begin = first; begin < first + gap; begin++){
-				insertionSortSubarray(a, begin, last, gap);
+				insertionSortSubarray(a, begin, last, gap, tally);
 			}
 
 		    gap = gap / 2;	// reduce gap
 		    if (gap > 0 && gap % 2 == 0)
 		    	gap ++;
 		} // end for
+		shellSortTime.stop(start);
+		comparisons.end(tally);
 	} // end shellSort
 	
-	private static void insertionSortSubarray (int [] a, int start, int end, int gap) {
+	private static void insertionSortSubarray (int [] a, int start, int end, int gap, CallCounter.Tally tally) {
 		int unsortedIndex, index;
 		// go through all elements in the subarray starting from the second
 		for (unsortedIndex = start + gap; unsortedIndex <= end; 
@@ -119,7 +139,7 @@ public class SimpleSorting {
 			index = unsortedIndex - gap;
 			while ((index >= start) && 
 					unsorted < a[index]){
-				comparisons ++;
+				tally.increment();
 				a[index + gap] = a[index]; 
 				index = index - gap;
 			} // end while
@@ -134,21 +154,23 @@ public class SimpleSorting {
 		System.out.println("Input array of size  " + n + ": "+ DataGenerator.arrToString(a));
 		
 		selectionSort(a);
-		System.out.println("Sorted with selection sort with total " + comparisons +" comparisons.");
+		System.out.println("Sorted with selection sort with total " + comparisons.last() +" comparisons.");
 		System.out.println("Output array: " + DataGenerator.arrToString(a));
 		
 		a = DataGenerator.getRandIntArray(n);
 		System.out.println("\nInput array of size  " + n + ": "+ DataGenerator.arrToString(a));
 		insertionSort(a);
-		System.out.println("Sorted with insertion sort with total " + comparisons +" comparisons.");
+		System.out.println("Sorted with insertion sort with total " + comparisons.last() +" comparisons.");
 		System.out.println("Output array: " + DataGenerator.arrToString(a));
 		
 		a = DataGenerator.getRandIntArray(n);
 		System.out.println("\nInput array of size  " + n + ": "+ DataGenerator.arrToString(a));
 		shellSort(a);
-		System.out.println("Sorted with shell sort with total " + comparisons +" comparisons.");
+		System.out.println("Sorted with shell sort with total " + comparisons.last() +" comparisons.");
 		System.out.println("Output array: " + DataGenerator.arrToString(a));
 		
+		System.out.println();
+		Metrics.report(System.out);
 	}
 
 }
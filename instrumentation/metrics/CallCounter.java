@@ -0,0 +1,66 @@
+package metrics;
+
+/**
+ * A count of operations per call, e.g. the comparisons made by one sort.
+ *
+ * begin() hands out a Tally for the call, which the code passes to its helpers
+ * and counts into: a plain field, so counting costs no more than an int++.
+ * Sorts running at the same time on different threads have their own tallies
+ * and do not mix their counts. end() adds the finished call into a registered
+ * Counter, which is the process-wide total of all calls and is never reset by them.
+ * Does nothing when metrics are off.
+ */
+public final class CallCounter {
+	/** The count of one call in progress; only its own thread touches it. */
+	public static final class Tally {
+		private long count;
+
+		private Tally() {
+		}
+
+		public void increment() {
+			if (Metrics.ENABLED)
+				count++;
+		}
+
+		public long count() {
+			return count;
+		}
+	}
+
+	private final Counter total;
+	// count of the last call finished on each thread
+	private final ThreadLocal<long []> last = ThreadLocal.withInitial(() -> new long [1]);
+
+	CallCounter(Counter total) {
+		this.total = total;
+	}
+
+	/** Starts a new call. */
+	public Tally begin() {
+		return new Tally();
+	}
+
+	/** Ends the call, adds its count into the total and returns it. */
+	public long end(Tally call) {
+		if (Metrics.ENABLED) {
+			total.add(call.count);
+			last.get()[0] = call.count;
+		}
+		return call.count;
+	}
+
+	/** Count of the last call finished on this thread. */
+	public long last() {
+		return Metrics.ENABLED ? last.get()[0] : 0;
+	}
+
+	/** Count of all finished calls, on all threads. */
+	public long total() {
+		return total.sum();
+	}
+
+	public String toString() {
+		return Long.toString(last());
+	}
+}
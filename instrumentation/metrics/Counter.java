@@ -0,0 +1,38 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe count of operations (see Metrics).
+ * Does nothing when metrics are off.
+ */
+public final class Counter {
+	private final LongAdder adder = new LongAdder();
+
+	Counter() {
+	}
+
+	public void increment() {
+		if (Metrics.ENABLED)
+			adder.increment();
+	}
+
+	public void add(long n) {
+		if (Metrics.ENABLED)
+			adder.add(n);
+	}
+
+	public long sum() {
+		return adder.sum();
+	}
+
+	/** Sets the count back to 0. Additions made by other threads
+	 *  while resetting may or may not be kept. */
+	public void reset() {
+		adder.reset();
+	}
+
+	public String toString() {
+		return Long.toString(sum());
+	}
+}
@@ -0,0 +1,75 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of call times in nanoseconds (see Metrics).
+ *
+ * Times are put in buckets by powers of 2: bucket b holds the times t with
+ * 2^(b-1) <= t < 2^b. This takes 65 counters whatever the number of calls,
+ * and percentiles are accurate to within a factor of 2.
+ * Usage:
+ * <pre>
+ *    long start = Metrics.start();
+ *    ... the call ...
+ *    histogram.stop(start);
+ * </pre>
+ */
+public final class Histogram {
+	private final LongAdder [] buckets = new LongAdder[65];
+	private final LongAdder totalNanos = new LongAdder();
+
+	Histogram() {
+		for (int b = 0; b < buckets.length; b++)
+			buckets[b] = new LongAdder();
+	}
+
+	/** Records the time since start, where start came from Metrics.start(). */
+	public void stop(long start) {
+		if (Metrics.ENABLED)
+			record(System.nanoTime() - start);
+	}
+
+	public void record(long nanos) {
+		if (Metrics.ENABLED) {
+			buckets[64 - Long.numberOfLeadingZeros(Math.max(nanos, 0))].increment();
+			totalNanos.add(nanos);
+		}
+	}
+
+	public long count() {
+		long n = 0;
+		for (LongAdder b : buckets)
+			n += b.sum();
+		return n;
+	}
+
+	public double mean() {
+		long n = count();
+		return (n == 0) ? 0 : (double) totalNanos.sum() / n;
+	}
+
+	/** Upper bound of the bucket holding the p-th percentile (0 < p <= 100). */
+	public long percentile(double p) {
+		long n = count();
+		long rank = (long) Math.ceil(p / 100 * n);
+		long seen = 0;
+		for (int b = 0; b < buckets.length; b++) {
+			seen += buckets[b].sum();
+			if (seen >= rank && seen > 0)
+				return (b == 64) ? Long.MAX_VALUE : 1L << b;
+		}
+		return 0;
+	}
+
+	public void reset() {
+		for (LongAdder b : buckets)
+			b.reset();
+		totalNanos.reset();
+	}
+
+	public String toString() {
+		return String.format("%d calls, mean %.0f ns, p50 < %d ns, p99 < %d ns",
+				count(), mean(), percentile(50), percentile(99));
+	}
+}
@@ -0,0 +1,88 @@
+package metrics;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Shared operation counters and timers for the demos.
+ *
+ * Instead of a public static int that every thread increments (and loses updates),
+ * a class asks for a Counter or a Histogram here and reports into it:
+ * <pre>
+ *    private static final Counter probes = Metrics.counter("hashtable.probes");
+ *    ...
+ *    probes.increment();
+ * </pre>
+ * Counters are LongAdders: every thread adds into its own cell, and the cells
+ * are summed only when the value is read, so counting is cheap and thread-safe.
+ * A count that belongs to one call, like the comparisons of one sort, is kept
+ * in a CallCounter instead (see callCounter), so calls on other threads do not
+ * mix into it.
+ *
+ * Run with -Dmetrics=off to switch everything off. ENABLED is a static final
+ * constant, so the JIT compiles "if (Metrics.ENABLED)" away and the
+ * counting code costs nothing at all (and all counts stay 0).
+ *
+ * Compile the demos with this directory on the source path, e.g.
+ *    javac -sourcepath ../instrumentation sorting/*.java
+ */
+public final class Metrics {
+	public static final boolean ENABLED = !"off".equals(System.getProperty("metrics"));
+
+	private static final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+	private static final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+
+	private Metrics() {
+	}
+
+	/** Returns the counter with this name, creating it the first time. */
+	public static Counter counter(String name) {
+		return counters.computeIfAbsent(name, n -> new Counter());
+	}
+
+	/** Returns a new counter that is not registered under any name,
+	 *  e.g. a counter that belongs to one object. */
+	public static Counter newCounter() {
+		return new Counter();
+	}
+
+	/** Returns a per-call counter whose finished calls add up in
+	 *  the counter with this name. */
+	public static CallCounter callCounter(String name) {
+		return new CallCounter(counter(name));
+	}
+
+	/** Returns the latency histogram with this name, creating it the first time. */
+	public static Histogram histogram(String name) {
+		return histograms.computeIfAbsent(name, n -> new Histogram());
+	}
+
+	/** Start time for Histogram.stop(); 0 when metrics are off. */
+	public static long start() {
+		return ENABLED ? System.nanoTime() : 0;
+	}
+
+	/** Bytes allocated by this thread so far, or -1 if the JVM cannot tell.
+	 *  The difference of two calls is what the code between them allocated. */
+	public static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+		return -1;
+	}
+
+	/** Prints every registered counter and histogram. */
+	public static void report(PrintStream out) {
+		if (!ENABLED) {
+			out.println("Metrics are off");
+			return;
+		}
+		for (Map.Entry<String, Counter> e : counters.entrySet())
+			out.println(e.getKey() + ": " + e.getValue().sum());
+		for (Map.Entry<String, Histogram> e : histograms.entrySet())
+			out.println(e.getKey() + ": " + e.getValue());
+	}
+}